@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -41,7 +42,10 @@ import com.diffplug.spotless.JarState;
 import com.diffplug.spotless.Provisioner;
 import com.diffplug.spotless.SerializedFunction;
 
+import dev.equo.solstice.p2.P2ClientCache;
 import dev.equo.solstice.p2.P2Model;
+import dev.equo.solstice.p2.P2QueryCache;
+import dev.equo.solstice.p2.P2QueryResult;
 
 /**
  * Generic Eclipse based formatter step {@link State} builder.
@@ -58,6 +62,7 @@ public abstract class EquoBasedStepBuilder {
 	private List<String> settingXml = new ArrayList<>();
 	private Map<String, String> p2Mirrors = Map.of();
 	private File cacheDirectory;
+	private @Nullable File lockfile;
 
 	/** Initialize valid default configuration, taking latest version */
 	protected EquoBasedStepBuilder(
@@ -104,6 +109,18 @@ public abstract class EquoBasedStepBuilder {
 		this.cacheDirectory = cacheDirectory;
 	}
 
+	/**
+	 * Resolves the formatter from the Maven coordinates listed in the given lockfile (one per line, {@code #}
+	 * starts a comment), taking precedence over any embedded lockfile. P2 metadata is never consulted, which
+	 * makes the step usable in air-gapped builds. {@link #generateLockfile()} creates the content of such a file.
+	 *
+	 * @throws IllegalArgumentException if a lockfile is given for a formatter which can't be provisioned from Maven
+	 *         coordinates alone
+	 */
+	public void setLockfile(@Nullable File lockfile) {
+		this.lockfile = lockfile;
+	}
+
 	protected abstract P2Model model(String version);
 
 	protected void addPlatformRepo(P2Model model, String version) {
@@ -126,7 +143,7 @@ public abstract class EquoBasedStepBuilder {
 	/** Returns the FormatterStep (whose state will be calculated lazily). */
 	public FormatterStep build() {
 		var roundtrippableState = new EquoStep(formatterVersion, settingProperties, settingXml, FileSignature.promise(settingsFiles), JarState.promise(() -> {
-			List<String> lockfileDependencies = readEmbeddedLockfileDependencies(formatterVersion);
+			List<String> lockfileDependencies = lockfile != null ? readLockfileDependencies(lockfile) : readEmbeddedLockfileDependencies(formatterVersion);
 			if (lockfileDependencies != null) {
 				return JarState.withoutTransitives(lockfileDependencies, mavenProvisioner);
 			}
@@ -141,6 +158,14 @@ public abstract class EquoBasedStepBuilder {
 		return FormatterStep.create(formatterName, roundtrippableState, EquoStep::state, stateToFormatter);
 	}
 
+	private static List<String> readLockfileDependencies(File lockfile) {
+		try {
+			return parseLockfile(Files.readString(lockfile.toPath(), StandardCharsets.UTF_8), lockfile.getAbsolutePath());
+		} catch (IOException e) {
+			throw Errors.asRuntime(e);
+		}
+	}
+
 	private @Nullable List<String> readEmbeddedLockfileDependencies(String version) {
 		String lockfileResourcePath = lockfileResourcePath(version);
 		if (lockfileResourcePath == null) {
@@ -160,6 +185,10 @@ public abstract class EquoBasedStepBuilder {
 		} catch (IOException e) {
 			throw Errors.asRuntime(e);
 		}
+		return parseLockfile(allLines, lockfileResourcePath);
+	}
+
+	private static List<String> parseLockfile(String allLines, String source) {
 		var dependencies = new ArrayList<String>();
 		for (String line : allLines.split("\n")) {
 			String trimmed = line.trim();
@@ -168,11 +197,31 @@ public abstract class EquoBasedStepBuilder {
 			}
 		}
 		if (dependencies.isEmpty()) {
-			throw new IllegalArgumentException("No dependencies defined in lockfile " + lockfileResourcePath);
+			throw new IllegalArgumentException("No dependencies defined in lockfile " + source);
 		}
 		return dependencies;
 	}
 
+	/**
+	 * Queries P2 for the configured version and returns the content of a lockfile which provisions the same
+	 * classpath from Maven coordinates only, for {@link #setLockfile(File)} or for embedding as
+	 * {@link #lockfileResourcePath(String)}.
+	 *
+	 * @throws IllegalStateException if the formatter needs jars which are not on Maven Central, and so can't be locked
+	 */
+	public String generateLockfile() throws Exception {
+		P2Model model = createModelWithMirrors();
+		P2QueryResult query = P2CacheLock.call(cacheDirectory, () -> model.query(P2ClientCache.PREFER_OFFLINE, P2QueryCache.ALLOW));
+		if (!query.getJarsNotOnMavenCentral().isEmpty()) {
+			throw new IllegalStateException(formatterName + " " + formatterVersion + " needs jars which are not on Maven Central, so it can't be locked: " + query.getJarsNotOnMavenCentral());
+		}
+		var lockfileContent = new StringBuilder("# Spotless " + formatterName + " " + formatterVersion + "\n");
+		// same as the P2 provisioned classpath, see P2Provisioner.createDefault
+		P2Provisioner.SOLSTICE_CLASSPATH.forEach(coordinate -> lockfileContent.append(coordinate).append('\n'));
+		query.getJarsOnMavenCentral().stream().distinct().sorted().forEach(coordinate -> lockfileContent.append(coordinate).append('\n'));
+		return lockfileContent.toString();
+	}
+
 	/**
 	 * Returns the classpath resource path of an embedded lockfile for the given formatter version.
 	 * <p>
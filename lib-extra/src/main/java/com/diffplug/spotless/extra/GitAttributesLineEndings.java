@@ -20,12 +20,22 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
@@ -33,6 +43,7 @@ import javax.annotation.Nullable;
 import org.eclipse.jgit.attributes.Attribute;
 import org.eclipse.jgit.attributes.AttributesNode;
 import org.eclipse.jgit.attributes.AttributesRule;
+import org.eclipse.jgit.dircache.DirCache;
 import org.eclipse.jgit.lib.Config;
 import org.eclipse.jgit.lib.ConfigConstants;
 import org.eclipse.jgit.lib.Constants;
@@ -68,6 +79,16 @@ public final class GitAttributesLineEndings {
 	// prevent direct instantiation
 	private GitAttributesLineEndings() {}
 
+	/**
+	 * Persists the line endings computed by {@link #create(File, Supplier)} into the given directory, so that a fresh
+	 * JVM doesn't match every target file against the attribute rules again while the git config and every relevant
+	 * {@code .gitattributes} are unchanged. The first call wins, later calls are ignored. The system property
+	 * {@code spotless.lineEndings.cacheDir} takes precedence over this method.
+	 */
+	public static void persistEndingsIn(File cacheDir) {
+		PersistedEndings.persistIn(cacheDir.toPath());
+	}
+
 	/**
 	 * Creates a line-endings policy which matches {@link #create(File, Supplier)},
 	 * which is much faster at the cost that every file under the policy
@@ -152,18 +173,30 @@ public final class GitAttributesLineEndings {
 		/** any exceptions to that default, in terms of relative path from rootDir */
 		final ConcurrentRadixTree<String> hasNonDefaultEnding = new ConcurrentRadixTree<>(new DefaultCharSequenceNodeFactory());
 
-		CachedEndings(File projectDir, Runtime runtime, Iterable<File> toFormat) {
+		CachedEndings(File projectDir, Runtime runtime, Iterable<File> toFormat) throws IOException {
 			String rootPath = FileSignature.pathNativeToUnix(projectDir.getAbsolutePath());
 			rootDir = "/".equals(rootPath) ? rootPath : rootPath + "/";
 			defaultEnding = runtime.defaultEnding;
-			for (File file : toFormat) {
-				String ending = runtime.getEndingFor(file);
-				if (!ending.equals(defaultEnding)) {
-					String absPath = FileSignature.pathNativeToUnix(file.getAbsolutePath());
-					String subPath = FileSignature.subpath(rootDir, absPath);
-					hasNonDefaultEnding.put(subPath, ending);
+			List<File> files = new ArrayList<>();
+			toFormat.forEach(files::add);
+			Path persisted = PersistedEndings.entryFor(runtime.fingerprint, files);
+			Map<String, String> nonDefaultEndings = persisted == null ? null : PersistedEndings.read(persisted);
+			if (nonDefaultEndings == null) {
+				// matching the attribute rules is pure, so the files are matched in parallel
+				nonDefaultEndings = new ConcurrentHashMap<>();
+				Map<String, String> found = nonDefaultEndings;
+				files.parallelStream().forEach(file -> {
+					String ending = runtime.getEndingFor(file);
+					if (!ending.equals(defaultEnding)) {
+						String absPath = FileSignature.pathNativeToUnix(file.getAbsolutePath());
+						found.put(FileSignature.subpath(rootDir, absPath), ending);
+					}
+				});
+				if (persisted != null) {
+					PersistedEndings.write(persisted, nonDefaultEndings);
 				}
 			}
+			nonDefaultEndings.forEach(hasNonDefaultEnding::put);
 		}
 
 		/** Returns the line ending appropriate for the given file. */
@@ -175,6 +208,86 @@ public final class GitAttributesLineEndings {
 		}
 	}
 
+	/**
+	 * Creates a line-endings policy which matches {@link #create(File, Supplier)}, but only resolves the line ending
+	 * of a file once it is asked for, so that an incremental run only looks up the files which changed. Instead of
+	 * the ending of every target file, its equality is a digest of the git config, the info and global attributes,
+	 * and every {@code .gitattributes} which can apply within {@code projectDir}: the ones in its parent folders,
+	 * and the ones below it which are in the git index. {@code toFormat} isn't used.
+	 */
+	public static LineEnding.Policy createLazy(File projectDir, Supplier<Iterable<File>> toFormat) {
+		return new LazyPolicy(projectDir);
+	}
+
+	static class LazyPolicy extends LazyForwardingEquality<String> implements LineEnding.Policy {
+		private static final long serialVersionUID = -3087250815218254412L;
+
+		transient File projectDir;
+		/** Not part of the state, so it is created again after deserialization. */
+		private transient volatile LazyEndings endings;
+
+		LazyPolicy(File projectDir) {
+			this.projectDir = Objects.requireNonNull(projectDir, "projectDir");
+		}
+
+		@Override
+		protected String calculateState() throws Exception {
+			RuntimeInit init = new RuntimeInit(projectDir);
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(init.contentFingerprint().getBytes(StandardCharsets.UTF_8));
+			Path projectPath = projectDir.toPath().toAbsolutePath();
+			for (File attributes : init.attributesFilesFor(projectDir)) {
+				// relative to the project, so that the summary doesn't depend on where it is checked out
+				String relativePath = FileSignature.pathNativeToUnix(projectPath.relativize(attributes.toPath().toAbsolutePath()).toString());
+				digest.update((relativePath + '\0').getBytes(StandardCharsets.UTF_8));
+				digest.update(Files.readAllBytes(attributes.toPath()));
+				digest.update((byte) 0);
+			}
+			projectDir = null;
+			return HexFormat.of().formatHex(digest.digest());
+		}
+
+		@Override
+		public String getEndingFor(File file) {
+			LazyEndings result = endings;
+			if (result == null) {
+				synchronized (this) {
+					result = endings;
+					if (result == null) {
+						result = new LazyEndings();
+						endings = result;
+					}
+				}
+			}
+			return result.endingFor(file);
+		}
+	}
+
+	/** Resolves the line ending of each file on first request, and remembers it, safe for concurrent use. */
+	static final class LazyEndings {
+		private static final File NO_GIT_DIR = new File("");
+
+		private final Map<File, Runtime> runtimeByFolder = new ConcurrentHashMap<>();
+		private final Map<File, Runtime> runtimeByGitDir = new ConcurrentHashMap<>();
+		private final Map<File, String> endingByFile = new ConcurrentHashMap<>();
+
+		String endingFor(File file) {
+			File absoluteFile = file.getAbsoluteFile();
+			String ending = endingByFile.get(absoluteFile);
+			if (ending == null) {
+				ending = endingByFile.computeIfAbsent(absoluteFile, f -> runtimeFor(f).getEndingFor(f));
+			}
+			return ending;
+		}
+
+		private Runtime runtimeFor(File file) {
+			return runtimeByFolder.computeIfAbsent(file.getParentFile(), folder -> {
+				File gitDir = GitWorkarounds.getDotGitDir(folder);
+				return runtimeByGitDir.computeIfAbsent(gitDir == null ? NO_GIT_DIR : gitDir, unused -> new RuntimeInit(folder).atRuntime());
+			});
+		}
+	}
+
 	static class RuntimeInit {
 		/** /etc/gitconfig (system-global), ~/.gitconfig (each might-not exist). */
 		final FileBasedConfig systemConfig;
@@ -190,6 +303,9 @@ public final class GitAttributesLineEndings {
 		/** git worktree root, might not exist if we're not in a git repo. */
 		final @Nullable File workTree;
 
+		/** The git index, might not exist if we're not in a git repo. */
+		final @Nullable File indexFile;
+
 		RuntimeInit(File projectDir) {
 			/////////////////////////////////
 			// USER AND SYSTEM-WIDE VALUES //
@@ -222,17 +338,115 @@ public final class GitAttributesLineEndings {
 			RepositorySpecificResolver repositoryResolver = GitWorkarounds.fileRepositoryResolverForProject(projectDir, userConfig);
 			if (repositoryResolver.getGitDir() != null) {
 				workTree = repositoryResolver.getWorkTree();
+				indexFile = repositoryResolver.getIndexFile();
 				repoConfig = repositoryResolver.getRepositoryConfig();
 				repoAttributesFile = repositoryResolver.resolveWithCommonDir(Constants.INFO_ATTRIBUTES);
 			} else {
 				workTree = null;
+				indexFile = null;
 				repoConfig = new Config();
 				repoAttributesFile = null;
 			}
 		}
 
 		private Runtime atRuntime() {
-			return new Runtime(parseRules(repoAttributesFile), workTree, repoConfig, parseRules(globalAttributesFile));
+			return new Runtime(parseRules(repoAttributesFile), workTree, repoConfig, parseRules(globalAttributesFile), fingerprint());
+		}
+
+		/** Everything the line endings depend on besides the files and their {@code .gitattributes}. */
+		private String fingerprint() {
+			return workTree + "\n" + repoAttributesFile + "\n" + globalAttributesFile + "\n" + contentFingerprint();
+		}
+
+		/** The content of the git config and of the info and global attributes, without any paths. */
+		String contentFingerprint() {
+			StringBuilder fingerprint = new StringBuilder();
+			for (Config config : new Config[]{systemConfig, userConfig, repoConfig}) {
+				fingerprint.append(config.toText()).append('\0');
+			}
+			for (File attributes : new File[]{repoAttributesFile, globalAttributesFile}) {
+				if (attributes != null && attributes.isFile()) {
+					// ISO-8859-1 maps every byte to a char, so any change shows up
+					Errors.log().run(() -> fingerprint.append(Files.readString(attributes.toPath(), StandardCharsets.ISO_8859_1)));
+				}
+				fingerprint.append('\0');
+			}
+			return fingerprint.toString();
+		}
+
+		/**
+		 * The {@code .gitattributes} files which can apply to files within the given folder: the ones in the folder
+		 * and its parents, and the ones below it which are in the git index, in a stable order.
+		 */
+		List<File> attributesFilesFor(File folder) throws IOException {
+			List<File> files = new ArrayList<>();
+			for (File parent = folder.getAbsoluteFile(); parent != null; parent = parent.getParentFile()) {
+				File attributes = new File(parent, Constants.DOT_GIT_ATTRIBUTES);
+				if (attributes.isFile()) {
+					files.add(attributes);
+				}
+			}
+			if (workTree != null && indexFile != null && indexFile.isFile()) {
+				String subpath = FileSignature.pathNativeToUnix(workTree.getAbsoluteFile().toPath().relativize(folder.getAbsoluteFile().toPath()).toString());
+				String prefix = subpath.isEmpty() ? "" : subpath + "/";
+				for (String path : indexedAttributesOf(indexFile)) {
+					if (path.startsWith(prefix) && path.length() > prefix.length() + Constants.DOT_GIT_ATTRIBUTES.length()) {
+						File attributes = new File(workTree, path);
+						if (attributes.isFile()) {
+							files.add(attributes);
+						}
+					}
+				}
+			}
+			return files;
+		}
+
+		/** The indexed {@code .gitattributes} of each index file, so that every project of a repository doesn't read the whole index. */
+		private static final Map<File, IndexedAttributes> INDEXED_ATTRIBUTES = new ConcurrentHashMap<>();
+
+		/** The paths of the {@code .gitattributes} files in subfolders which are in the given index, read again once it changes. */
+		static List<String> indexedAttributesOf(File indexFile) throws IOException {
+			File key = indexFile.getAbsoluteFile();
+			// read before the index, so that a concurrent write shows up as a change next time
+			BasicFileAttributes attributes = Files.readAttributes(key.toPath(), BasicFileAttributes.class);
+			IndexedAttributes cached = INDEXED_ATTRIBUTES.get(key);
+			if (cached != null && cached.isCurrent(attributes)) {
+				return cached.paths;
+			}
+			DirCache index = DirCache.read(key, FS.DETECTED);
+			List<String> paths = new ArrayList<>();
+			for (int i = 0; i < index.getEntryCount(); ++i) {
+				String path = index.getEntry(i).getPathString();
+				if (path.endsWith("/" + Constants.DOT_GIT_ATTRIBUTES)) {
+					paths.add(path);
+				}
+			}
+			IndexedAttributes read = new IndexedAttributes(attributes, Collections.unmodifiableList(paths));
+			INDEXED_ATTRIBUTES.put(key, read);
+			return read.paths;
+		}
+
+		private static final class IndexedAttributes {
+			/** Like git's racy-clean check: an index modified this recently may still change without a new timestamp. */
+			private static final Duration RACY = Duration.ofMillis(2500);
+
+			final FileTime lastModified;
+			final long size;
+			final @Nullable Object fileKey;
+			final boolean racy;
+			final List<String> paths;
+
+			IndexedAttributes(BasicFileAttributes attributes, List<String> paths) {
+				this.lastModified = attributes.lastModifiedTime();
+				this.size = attributes.size();
+				this.fileKey = attributes.fileKey();
+				this.racy = Duration.between(lastModified.toInstant(), Instant.now()).compareTo(RACY) < 0;
+				this.paths = paths;
+			}
+
+			boolean isCurrent(BasicFileAttributes attributes) {
+				return !racy && lastModified.equals(attributes.lastModifiedTime()) && size == attributes.size() && Objects.equals(fileKey, attributes.fileKey());
+			}
 		}
 	}
 
@@ -259,11 +473,15 @@ public final class GitAttributesLineEndings {
 		 */
 		final String defaultEnding;
 
-		private Runtime(List<AttributesRule> infoRules, @Nullable File workTree, Config config, List<AttributesRule> globalRules) {
+		/** Identifies the config and attributes this runtime was created from, see {@link PersistedEndings}. */
+		final String fingerprint;
+
+		private Runtime(List<AttributesRule> infoRules, @Nullable File workTree, Config config, List<AttributesRule> globalRules, String fingerprint) {
 			this.infoRules = Objects.requireNonNull(infoRules);
 			this.workTree = workTree;
 			this.defaultEnding = findDefaultLineEnding(config).str();
 			this.globalRules = Objects.requireNonNull(globalRules);
+			this.fingerprint = fingerprint;
 		}
 
 		private static final String KEY_EOL = "eol";
@@ -346,9 +564,9 @@ public final class GitAttributesLineEndings {
 		}
 	}
 
-	/** Parses and caches .gitattributes files. */
+	/** Parses and caches .gitattributes files, safe for concurrent use. */
 	static class AttributesCache {
-		final Map<File, List<AttributesRule>> rulesAtPath = new HashMap<>();
+		final Map<File, List<AttributesRule>> rulesAtPath = new ConcurrentHashMap<>();
 
 		/** Returns a value if there is one, or unspecified if there isn't. */
 		public @Nullable String valueFor(File file, String key) {
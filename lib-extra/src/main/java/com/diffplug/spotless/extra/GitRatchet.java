@@ -17,15 +17,25 @@ package com.diffplug.spotless.extra;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nullable;
 
 import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
 import org.eclipse.jgit.dircache.DirCacheIterator;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.RepositoryCache;
@@ -40,11 +50,10 @@ import org.eclipse.jgit.treewalk.WorkingTreeIterator;
 import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.IndexDiffFilter;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.jgit.util.FS;
 
 import com.diffplug.common.base.Errors;
-import com.diffplug.common.collect.HashBasedTable;
-import com.diffplug.common.collect.Table;
 import com.diffplug.spotless.FileSignature;
 
 /**
@@ -52,6 +61,7 @@ import com.diffplug.spotless.FileSignature;
  * - For best performance, you should have one instance of GitRatchet, shared by all projects.
  * - Use {@link #rootTreeShaOf(Object, String)} to turn {@code origin/master} into the SHA of the tree object at that reference
  * - Use {@link #isClean(Object, ObjectId, File)} to see if the given file is "git clean" relative to that tree
+ * - Use {@link #dirtyFilesOf(Object, ObjectId)} to find all the files of a project which aren't "git clean" in one go
  * - If you have up-to-date checking and want the best possible performance, use {@link #subtreeShaOf(Object, ObjectId)} to optimize up-to-date checks on a per-project basis.
  */
 public abstract class GitRatchet<Project> implements AutoCloseable {
@@ -62,67 +72,169 @@ public abstract class GitRatchet<Project> implements AutoCloseable {
 		return isClean(project, treeSha, relativePath);
 	}
 
-	private final Map<Repository, DirCache> dirCaches = new HashMap<>();
+	private final Map<Repository, DirCache> dirCaches = new ConcurrentHashMap<>();
 
 	/**
 	 * This is the highest-level method, which all the others serve.  Given the sha
 	 * of a git tree (not a commit!), and the file in question, this method returns
 	 * true if that file is clean relative to that tree.  A naive implementation of this
 	 * could be verrrry slow, so the rest of this is about speeding this up.
+	 * <p>
+	 * To check many files of a project, {@link #dirtyFilesOf(Object, ObjectId)} is much faster.
 	 */
 	public boolean isClean(Project project, ObjectId treeSha, String relativePathUnix) throws IOException {
 		Repository repo = repositoryFor(project);
+		try (TreeWalk treeWalk = treeWalk(repo, treeSha, PathFilter.create(relativePathUnix))) {
+			// if the walk is empty, the file we care about is git clean
+			return !treeWalk.next() || isClean(treeWalk, treeSha);
+		}
+	}
+
+	/**
+	 * Returns the files within the given project which are not clean relative to the given tree, using a single walk
+	 * over the tree, the index and the worktree of the project's directory, rather than one walk per file like
+	 * {@link #isClean(Object, ObjectId, File)}.  Files of the project which aren't in the result are clean.
+	 */
+	public DirtyFiles dirtyFilesOf(Project project, ObjectId treeSha) throws IOException {
+		Repository repo = repositoryFor(project);
+		Path workTree = repo.getWorkTree().toPath();
+		String subpath = FileSignature.pathNativeToUnix(workTree.relativize(getDir(project).toPath()).toString());
+		Set<String> dirtyPaths = new HashSet<>();
+		try (TreeWalk treeWalk = treeWalk(repo, treeSha, subpath.isEmpty() ? null : PathFilter.create(subpath))) {
+			while (treeWalk.next()) {
+				if (!isClean(treeWalk, treeSha)) {
+					dirtyPaths.add(treeWalk.getPathString());
+				}
+			}
+		}
+		return new DirtyFiles(workTree, dirtyPaths);
+	}
+
+	/** The result of {@link #dirtyFilesOf(Object, ObjectId)}. */
+	public static final class DirtyFiles {
+		private final Path workTree;
+		private final Set<String> dirtyPaths;
 
-		DirCacheIterator dirCacheIteratorInit;
-		synchronized (this) {
-			// each DirCache is thread-safe, and we compute them one-to-one based on `repositoryFor`
-			DirCache dirCache = dirCaches.computeIfAbsent(repo, Errors.rethrow().wrap(Repository::readDirCache));
-			dirCacheIteratorInit = new DirCacheIterator(dirCache);
+		private DirtyFiles(Path workTree, Set<String> dirtyPaths) {
+			this.workTree = workTree;
+			this.dirtyPaths = dirtyPaths;
+		}
+
+		/** Returns true if the given file, which must be within the project, is clean. */
+		public boolean isClean(File file) {
+			return !dirtyPaths.contains(FileSignature.pathNativeToUnix(workTree.relativize(file.toPath()).toString()));
+		}
+
+		/** The dirty files, as unix-style paths relative to the root of the git worktree. */
+		public Set<String> relativePathsUnix() {
+			return Collections.unmodifiableSet(dirtyPaths);
+		}
+
+		/** The dirty files, including the ones which have been deleted from the worktree. */
+		public List<File> files() {
+			List<File> files = new ArrayList<>(dirtyPaths.size());
+			for (String dirtyPath : dirtyPaths) {
+				files.add(workTree.resolve(dirtyPath).toFile());
+			}
+			return files;
 		}
+	}
+
+	/**
+	 * Returns the blob of every file within the given project whose worktree content is what the index has staged,
+	 * using a single walk over the index and the worktree. Files which are modified, untracked, conflicted, or which
+	 * git has been told not to check (assume-unchanged or skip-worktree) have no blob.
+	 */
+	public IndexBlobs indexBlobsOf(Project project) throws IOException {
+		Repository repo = repositoryFor(project);
+		Path workTree = repo.getWorkTree().toPath();
+		String subpath = FileSignature.pathNativeToUnix(workTree.relativize(getDir(project).toPath()).toString());
+		DirCache dirCache = computeOnce(dirCaches, repo, this::readDirCache);
+		Set<String> modifiedPaths = new HashSet<>();
 		try (TreeWalk treeWalk = new TreeWalk(repo)) {
 			treeWalk.setRecursive(true);
-			treeWalk.addTree(treeSha);
-			treeWalk.addTree(dirCacheIteratorInit);
+			treeWalk.addTree(new DirCacheIterator(dirCache));
 			treeWalk.addTree(new FileTreeIterator(repo));
-			treeWalk.setFilter(AndTreeFilter.create(
-					PathFilter.create(relativePathUnix),
-					new IndexDiffFilter(INDEX, WORKDIR)));
+			IndexDiffFilter indexDiffFilter = new IndexDiffFilter(0, 1);
+			treeWalk.setFilter(subpath.isEmpty() ? indexDiffFilter : AndTreeFilter.create(PathFilter.create(subpath), indexDiffFilter));
+			while (treeWalk.next()) {
+				modifiedPaths.add(treeWalk.getPathString());
+			}
+		}
+		DirCacheEntry[] entries = dirCache.getEntriesWithin(subpath);
+		Map<String, ObjectId> blobs = new HashMap<>(entries.length);
+		for (DirCacheEntry entry : entries) {
+			boolean isFile = entry.getFileMode() == FileMode.REGULAR_FILE || entry.getFileMode() == FileMode.EXECUTABLE_FILE;
+			if (isFile && entry.getStage() == DirCacheEntry.STAGE_0 && !entry.isAssumeValid() && !entry.isSkipWorkTree()
+					&& !modifiedPaths.contains(entry.getPathString())) {
+				blobs.put(entry.getPathString(), entry.getObjectId());
+			}
+		}
+		return new IndexBlobs(workTree, blobs);
+	}
 
-			if (!treeWalk.next()) {
-				// the file we care about is git clean
-				return true;
-			} else {
-				AbstractTreeIterator treeIterator = treeWalk.getTree(TREE, AbstractTreeIterator.class);
-				DirCacheIterator dirCacheIterator = treeWalk.getTree(INDEX, DirCacheIterator.class);
-				WorkingTreeIterator workingTreeIterator = treeWalk.getTree(WORKDIR, WorkingTreeIterator.class);
+	/** The result of {@link #indexBlobsOf(Object)}. */
+	public static final class IndexBlobs {
+		private final Path workTree;
+		private final Map<String, ObjectId> blobs;
+
+		private IndexBlobs(Path workTree, Map<String, ObjectId> blobs) {
+			this.workTree = workTree;
+			this.blobs = blobs;
+		}
 
-				boolean hasTree = treeIterator != null && workingTreeIterator != null;
-				boolean hasDirCache = dirCacheIterator != null;
+		/** Returns the blob of the given file, which must be within the project, or null if it doesn't have one. */
+		public @Nullable ObjectId blobOf(File file) {
+			return blobs.get(FileSignature.pathNativeToUnix(workTree.relativize(file.toPath()).toString()));
+		}
+	}
+
+	/** Walks the entries where {@code treeSha}, the index and the worktree differ in any way, optionally limited to {@code pathFilter}. */
+	private TreeWalk treeWalk(Repository repo, ObjectId treeSha, @Nullable TreeFilter pathFilter) throws IOException {
+		// each DirCache is thread-safe, and we compute them one-to-one based on `repositoryFor`
+		DirCache dirCache = computeOnce(dirCaches, repo, this::readDirCache);
+		DirCacheIterator dirCacheIteratorInit = new DirCacheIterator(dirCache);
+		TreeWalk treeWalk = new TreeWalk(repo);
+		treeWalk.setRecursive(true);
+		treeWalk.addTree(treeSha);
+		treeWalk.addTree(dirCacheIteratorInit);
+		treeWalk.addTree(new FileTreeIterator(repo));
+		IndexDiffFilter indexDiffFilter = new IndexDiffFilter(INDEX, WORKDIR);
+		treeWalk.setFilter(pathFilter == null ? indexDiffFilter : AndTreeFilter.create(pathFilter, indexDiffFilter));
+		return treeWalk;
+	}
 
-				if (!hasTree) {
-					// it's not in the tree, so it was added
+	/** Given a walk positioned on an entry which differs between tree, index or worktree, returns true if the entry is clean anyway. */
+	private static boolean isClean(TreeWalk treeWalk, ObjectId treeSha) throws IOException {
+		AbstractTreeIterator treeIterator = treeWalk.getTree(TREE, AbstractTreeIterator.class);
+		DirCacheIterator dirCacheIterator = treeWalk.getTree(INDEX, DirCacheIterator.class);
+		WorkingTreeIterator workingTreeIterator = treeWalk.getTree(WORKDIR, WorkingTreeIterator.class);
+
+		boolean hasTree = treeIterator != null && workingTreeIterator != null;
+		boolean hasDirCache = dirCacheIterator != null;
+
+		if (!hasTree) {
+			// it's not in the tree, so it was added
+			return false;
+		} else {
+			if (hasDirCache) {
+				boolean treeEqualsIndex = treeIterator.idEqual(dirCacheIterator) && treeIterator.getEntryRawMode() == dirCacheIterator.getEntryRawMode();
+				boolean indexEqualsWC = !workingTreeIterator.isModified(dirCacheIterator.getDirCacheEntry(), true, treeWalk.getObjectReader());
+				if (treeEqualsIndex != indexEqualsWC) {
+					// if one is equal and the other isn't, then it has definitely changed
 					return false;
+				} else if (treeEqualsIndex) {
+					// this means they are all equal to each other, which should never happen
+					// the IndexDiffFilter should keep those out of the TreeWalk entirely
+					throw new IllegalStateException("Index status for " + treeWalk.getPathString() + " against treeSha " + treeSha + " is invalid.");
 				} else {
-					if (hasDirCache) {
-						boolean treeEqualsIndex = treeIterator.idEqual(dirCacheIterator) && treeIterator.getEntryRawMode() == dirCacheIterator.getEntryRawMode();
-						boolean indexEqualsWC = !workingTreeIterator.isModified(dirCacheIterator.getDirCacheEntry(), true, treeWalk.getObjectReader());
-						if (treeEqualsIndex != indexEqualsWC) {
-							// if one is equal and the other isn't, then it has definitely changed
-							return false;
-						} else if (treeEqualsIndex) {
-							// this means they are all equal to each other, which should never happen
-							// the IndexDiffFilter should keep those out of the TreeWalk entirely
-							throw new IllegalStateException("Index status for " + relativePathUnix + " against treeSha " + treeSha + " is invalid.");
-						} else {
-							// they are all unique
-							// we have to check manually
-							return worktreeIsCleanCheckout(treeWalk);
-						}
-					} else {
-						// no dirCache, so we will compare the tree to the workdir manually
-						return worktreeIsCleanCheckout(treeWalk);
-					}
+					// they are all unique
+					// we have to check manually
+					return worktreeIsCleanCheckout(treeWalk);
 				}
+			} else {
+				// no dirCache, so we will compare the tree to the workdir manually
+				return worktreeIsCleanCheckout(treeWalk);
 			}
 		}
 	}
@@ -136,9 +248,42 @@ public abstract class GitRatchet<Project> implements AutoCloseable {
 	private static final int INDEX = 1;
 	private static final int WORKDIR = 2;
 
-	Map<File, Repository> gitRoots = new HashMap<>();
-	Table<Repository, String, ObjectId> rootTreeShaCache = HashBasedTable.create();
-	Map<Project, ObjectId> subtreeShaCache = new HashMap<>();
+	/*
+	 * All of the caches are filled at most once per key, and then only read, many times from many threads (e.g. every
+	 * task of a parallel build), so they are concurrent maps which are read without taking any lock.
+	 */
+	final Map<File, Repository> gitRoots = new ConcurrentHashMap<>();
+	final Map<RootTreeKey, ObjectId> rootTreeShaCache = new ConcurrentHashMap<>();
+	final Map<Project, ObjectId> subtreeShaCache = new ConcurrentHashMap<>();
+
+	record RootTreeKey(Repository repo, String reference) {}
+
+	/** Computes the value of a key for {@link #computeOnce}. */
+	protected interface IOFunction<K, V> {
+		V apply(K key) throws IOException;
+	}
+
+	/**
+	 * Returns the value for the key, which is computed at most once, and read without locking once it is there.
+	 * An {@link IOException} of the computation is thrown as is, and the next call computes the value again.
+	 */
+	protected static <K, V> V computeOnce(Map<K, V> cache, K key, IOFunction<K, V> compute) throws IOException {
+		V value = cache.get(key);
+		if (value != null) {
+			return value;
+		}
+		try {
+			return cache.computeIfAbsent(key, k -> {
+				try {
+					return compute.apply(k);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
 
 	/**
 	 * The first part of making this fast is finding the appropriate git repository quickly.  Because of composite
@@ -150,12 +295,43 @@ public abstract class GitRatchet<Project> implements AutoCloseable {
 		if (projectGitDir == null || !isGitRepository(projectGitDir)) {
 			throw new IllegalArgumentException("Cannot find git repository in any parent directory");
 		}
-		Repository repo = gitRoots.get(projectGitDir);
-		if (repo == null) {
-			repo = FileRepositoryBuilder.create(projectGitDir);
-			gitRoots.put(projectGitDir, repo);
+		return computeOnce(gitRoots, projectGitDir, this::openRepository);
+	}
+
+	/** Returns true if the given project is within a git repository, otherwise the other methods throw. */
+	public boolean isInRepository(Project project) {
+		File projectGitDir = GitWorkarounds.getDotGitDir(getDir(project));
+		return projectGitDir != null && isGitRepository(projectGitDir);
+	}
+
+	/** Opens the repository with the given git dir, which {@link #close()} closes again. */
+	protected Repository openRepository(File gitDir) throws IOException {
+		return FileRepositoryBuilder.create(gitDir);
+	}
+
+	/** Reads the index of the given repository, which is then used for the lifetime of this instance. */
+	protected DirCache readDirCache(Repository repo) throws IOException {
+		return repo.readDirCache();
+	}
+
+	/** Returns the tree of the merge base of the given commits, or of {@code ratchetFrom} if they don't have one. */
+	protected ObjectId mergeBaseTreeOf(Repository repo, ObjectId ratchetFrom, ObjectId head) throws IOException {
+		try (RevWalk revWalk = new RevWalk(repo)) {
+			return mergeBaseTreeOf(revWalk, ratchetFrom, head);
 		}
-		return repo;
+	}
+
+	/** Returns the tree of the merge base of the given commits, or of {@code ratchetFrom} if they don't have one. */
+	public static ObjectId mergeBaseTreeOf(RevWalk revWalk, ObjectId ratchetFrom, ObjectId head) throws IOException {
+		RevCommit ratchetFromCommit = revWalk.parseCommit(ratchetFrom);
+		RevCommit headCommit = revWalk.parseCommit(head);
+
+		revWalk.setRevFilter(RevFilter.MERGE_BASE);
+		revWalk.markStart(ratchetFromCommit);
+		revWalk.markStart(headCommit);
+
+		RevCommit mergeBase = revWalk.next();
+		return Optional.ofNullable(mergeBase).orElse(ratchetFromCommit).getTree();
 	}
 
 	/**
@@ -186,34 +362,19 @@ public abstract class GitRatchet<Project> implements AutoCloseable {
 
 	/**
 	 * Fast way to return treeSha of the given ref against the git repository which stores the given project.
-	 * Because of parallel project evaluation, there may be races here, so we synchronize on ourselves.  However, this method
-	 * is the only method which can trigger any changes, and it is only called during project evaluation.  That means our state
-	 * is final/read-only during task execution, so we don't need any locks during the heavy lifting.
+	 * Because of parallel project evaluation, several projects may ask for the same ref at once, but it is only
+	 * resolved once, and every later call is a lock-free lookup.
 	 */
-	public synchronized ObjectId rootTreeShaOf(Project project, String reference) {
+	public ObjectId rootTreeShaOf(Project project, String reference) {
 		try {
 			Repository repo = repositoryFor(project);
-			ObjectId treeSha = rootTreeShaCache.get(repo, reference);
-			if (treeSha == null) {
-				try (RevWalk revWalk = new RevWalk(repo)) {
-					ObjectId commitSha = repo.resolve(reference);
-					if (commitSha == null) {
-						throw new IllegalArgumentException("No such reference '" + reference + "'");
-					}
-
-					RevCommit ratchetFrom = revWalk.parseCommit(commitSha);
-					RevCommit head = revWalk.parseCommit(repo.resolve(Constants.HEAD));
-
-					revWalk.setRevFilter(RevFilter.MERGE_BASE);
-					revWalk.markStart(ratchetFrom);
-					revWalk.markStart(head);
-
-					RevCommit mergeBase = revWalk.next();
-					treeSha = Optional.ofNullable(mergeBase).orElse(ratchetFrom).getTree();
+			return computeOnce(rootTreeShaCache, new RootTreeKey(repo, reference), unused -> {
+				ObjectId commitSha = repo.resolve(reference);
+				if (commitSha == null) {
+					throw new IllegalArgumentException("No such reference '" + reference + "'");
 				}
-				rootTreeShaCache.put(repo, reference, treeSha.copy());
-			}
-			return treeSha;
+				return mergeBaseTreeOf(repo, commitSha, repo.resolve(Constants.HEAD)).copy();
+			});
 		} catch (IOException e) {
 			throw Errors.asRuntime(e);
 		}
@@ -223,22 +384,19 @@ public abstract class GitRatchet<Project> implements AutoCloseable {
 	 * Returns the sha of the git subtree which represents the root of the given project, or {@link ObjectId#zeroId()}
 	 * if there is no git subtree at the project root.
 	 */
-	public synchronized ObjectId subtreeShaOf(Project project, ObjectId rootTreeSha) {
+	public ObjectId subtreeShaOf(Project project, ObjectId rootTreeSha) {
 		try {
-			ObjectId subtreeSha = subtreeShaCache.get(project);
-			if (subtreeSha == null) {
+			return computeOnce(subtreeShaCache, project, unused -> {
 				Repository repo = repositoryFor(project);
 				File directory = getDir(project);
 				if (repo.getWorkTree().equals(directory)) {
-					subtreeSha = rootTreeSha;
-				} else {
-					String subpath = FileSignature.pathNativeToUnix(repo.getWorkTree().toPath().relativize(directory.toPath()).toString());
-					TreeWalk treeWalk = TreeWalk.forPath(repo, subpath, rootTreeSha);
-					subtreeSha = treeWalk == null ? ObjectId.zeroId() : treeWalk.getObjectId(0);
+					return rootTreeSha.copy();
 				}
-				subtreeShaCache.put(project, subtreeSha.copy());
-			}
-			return subtreeSha;
+				String subpath = FileSignature.pathNativeToUnix(repo.getWorkTree().toPath().relativize(directory.toPath()).toString());
+				try (TreeWalk treeWalk = TreeWalk.forPath(repo, subpath, rootTreeSha)) {
+					return treeWalk == null ? ObjectId.zeroId() : treeWalk.getObjectId(0).copy();
+				}
+			});
 		} catch (IOException e) {
 			throw Errors.asRuntime(e);
 		}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless.extra;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+
+import com.diffplug.spotless.AtomicFiles;
+import com.diffplug.spotless.ThrowingEx;
+
+/**
+ * Remembers on disk which git blobs a formatter has already verified to be clean, at which path and with which line
+ * ending. Since a blob is identified by its content, a file whose worktree content is what the index has staged (see
+ * {@link GitRatchet#indexBlobsOf(Object)}) doesn't have to be formatted again if its blob was verified before,
+ * whether in this clone or in another one sharing the same directory (e.g. CI agents checking out the same commit).
+ * Git may convert the content on checkout (e.g. with {@code core.autocrlf} or a smudge filter), so a record is only
+ * used for a file whose bytes are exactly the blob, see {@link #isContentOf(ObjectId, byte[])}.
+ * <p>
+ * The record is keyed by a fingerprint of the formatter, which must cover everything the result depends on apart from
+ * the path and the line ending, i.e. the encoding and the steps. The path is part of each entry, since steps may
+ * behave differently by file name (e.g. prettier infers the parser from it), and so is the line ending of the
+ * policy. Every clone on the machine shares the record, so an entry is only dropped once none of them has used it
+ * for {@link #MAX_UNUSED_DAYS} days.
+ */
+public final class GitVerifiedBlobs {
+	/** An entry which hasn't been used for this many days is dropped on the next save. */
+	static final long MAX_UNUSED_DAYS = 30;
+
+	private final Path entry;
+	private final long today;
+	/** The day each entry was last used, by key. */
+	private final Map<String, Long> loaded;
+	private final Set<String> used = ConcurrentHashMap.newKeySet();
+
+	private GitVerifiedBlobs(Path entry, long today) {
+		this.entry = entry;
+		this.today = today;
+		this.loaded = read(entry);
+	}
+
+	/** Loads the blobs which were verified by the formatter with the given fingerprint, from the given directory. */
+	public static GitVerifiedBlobs load(File directory, String formatterFingerprint) {
+		return load(directory, formatterFingerprint, LocalDate.now(ZoneOffset.UTC).toEpochDay());
+	}
+
+	static GitVerifiedBlobs load(File directory, String formatterFingerprint, long today) {
+		MessageDigest digest = ThrowingEx.get(() -> MessageDigest.getInstance("SHA-256"));
+		byte[] hash = digest.digest(formatterFingerprint.getBytes(StandardCharsets.UTF_8));
+		return new GitVerifiedBlobs(directory.toPath().resolve(HexFormat.of().formatHex(hash) + ".txt"), today);
+	}
+
+	/** Returns true if the given content is the given blob as is, i.e. git didn't convert it on checkout. */
+	public static boolean isContentOf(ObjectId blob, byte[] content) {
+		try (ObjectInserter.Formatter formatter = new ObjectInserter.Formatter()) {
+			return blob.equals(formatter.idFor(Constants.OBJ_BLOB, content));
+		}
+	}
+
+	/**
+	 * Returns true if the given blob was verified clean at the given path with the given line ending, in which case
+	 * it is also marked as used for the next {@link #save()}.
+	 */
+	public boolean isVerified(ObjectId blob, String relativePathUnix, String lineEnding) {
+		String key = keyOf(blob, relativePathUnix, lineEnding);
+		if (loaded.containsKey(key)) {
+			used.add(key);
+			return true;
+		}
+		return false;
+	}
+
+	/** Records that the given blob is clean at the given path with the given line ending. */
+	public void verified(ObjectId blob, String relativePathUnix, String lineEnding) {
+		used.add(keyOf(blob, relativePathUnix, lineEnding));
+	}
+
+	/**
+	 * Writes the record back to disk, merged with whatever other clones saved since it was loaded, and without the
+	 * entries which haven't been used for {@link #MAX_UNUSED_DAYS} days.
+	 */
+	public void save() {
+		Map<String, Long> onDisk = read(entry);
+		Map<String, Long> toSave = new HashMap<>(onDisk);
+		toSave.values().removeIf(lastUsed -> today - lastUsed > MAX_UNUSED_DAYS);
+		for (String key : used) {
+			toSave.put(key, today);
+		}
+		if (toSave.equals(onDisk)) {
+			return;
+		}
+		List<String> lines = new ArrayList<>(toSave.size());
+		toSave.forEach((key, lastUsed) -> lines.add(lastUsed + "\t" + key));
+		// the record is only an optimization, the files are simply formatted again next time
+		AtomicFiles.writeBestEffort(entry, temp -> Files.write(temp, lines, StandardCharsets.UTF_8));
+	}
+
+	private static Map<String, Long> read(Path entry) {
+		if (!Files.isRegularFile(entry)) {
+			return Map.of();
+		}
+		try {
+			Map<String, Long> lastUsedByKey = new HashMap<>();
+			for (String line : Files.readAllLines(entry, StandardCharsets.UTF_8)) {
+				int tab = line.indexOf('\t');
+				lastUsedByKey.put(line.substring(tab + 1), Long.parseLong(line.substring(0, tab)));
+			}
+			return lastUsedByKey;
+		} catch (IOException | RuntimeException e) {
+			// a corrupt entry is simply verified again and overwritten
+			return Map.of();
+		}
+	}
+
+	private static String keyOf(ObjectId blob, String relativePathUnix, String lineEnding) {
+		String ending = lineEnding.replace("\r", "\\r").replace("\n", "\\n");
+		return blob.name() + '\t' + ending + '\t' + relativePathUnix;
+	}
+}
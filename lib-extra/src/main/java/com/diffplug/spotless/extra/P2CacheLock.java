@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless.extra;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.annotation.Nullable;
+
+import com.diffplug.spotless.ThrowingEx;
+
+import dev.equo.solstice.p2.CacheLocations;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Guards Solstice's P2 cache. Solstice keeps the cache location in a static field and its on-disk cache is not
+ * safe for concurrent use, so everything which touches the cache runs under one lock within the JVM, and under a
+ * {@link FileLock} on a sibling {@code <p2-data>.lock} file across processes (e.g. parallel Gradle daemons or Maven
+ * builds on the same machine).
+ */
+final class P2CacheLock {
+	/**
+	 * String literals are interned JVM-wide, so copies of this class in other classloaders (e.g. the plugin of another
+	 * build in the same Gradle daemon) synchronize on the same monitor, which they must since the JVM holds file locks
+	 * on behalf of all of them and throws {@link OverlappingFileLockException} instead of waiting.
+	 */
+	private static final String JVM_LOCK = "com.diffplug.spotless.extra.P2CacheLock";
+	private static final long MAX_RETRY_DELAY_MILLIS = 100;
+
+	private P2CacheLock() {}
+
+	/** Runs {@code supplier} with Solstice pointed at {@code cacheDirectory} (or its default) and no one else touching it. */
+	@SuppressFBWarnings(value = "DL_SYNCHRONIZATION_ON_SHARED_CONSTANT", justification = "sharing the monitor JVM-wide is the point")
+	static <T> T call(@Nullable File cacheDirectory, ThrowingEx.Supplier<T> supplier) throws Exception {
+		synchronized (JVM_LOCK) {
+			if (cacheDirectory != null) {
+				CacheLocations.override_p2data = cacheDirectory;
+			}
+			Path p2data = CacheLocations.p2data().toPath().toAbsolutePath();
+			Path lockFile = p2data.resolveSibling(p2data.getFileName() + ".lock");
+			Files.createDirectories(lockFile.getParent());
+			try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+					FileLock lock = lock(channel)) {
+				return supplier.get();
+			}
+		}
+	}
+
+	private static FileLock lock(FileChannel channel) throws IOException, InterruptedException {
+		long delay = 1;
+		while (true) {
+			try {
+				return channel.lock();
+			} catch (OverlappingFileLockException e) {
+				// held within this JVM by code which doesn't share our monitor, e.g. an older Spotless, so poll
+				Thread.sleep(delay);
+				delay = Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+			}
+		}
+	}
+}
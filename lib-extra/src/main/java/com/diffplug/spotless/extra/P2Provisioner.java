@@ -25,9 +25,7 @@ import javax.annotation.Nullable;
 import com.diffplug.spotless.Provisioner;
 
 import dev.equo.solstice.NestedJars;
-import dev.equo.solstice.p2.CacheLocations;
 import dev.equo.solstice.p2.P2ClientCache;
-import dev.equo.solstice.p2.P2Model;
 import dev.equo.solstice.p2.P2QueryCache;
 import dev.equo.solstice.p2.P2QueryResult;
 
@@ -37,6 +35,14 @@ import dev.equo.solstice.p2.P2QueryResult;
  */
 @FunctionalInterface
 public interface P2Provisioner {
+	/**
+	 * The Maven coordinates which every P2-provisioned classpath needs besides the jars of the P2 query, and which
+	 * a lockfile therefore lists as well.
+	 */
+	List<String> SOLSTICE_CLASSPATH = List.of(
+			"dev.equo.ide:solstice:1.8.2",
+			"com.diffplug.durian:durian-swt.os:4.3.1");
+
 	/**
 	 * Resolves P2 dependencies and returns the classpath.
 	 *
@@ -53,7 +59,8 @@ public interface P2Provisioner {
 	/**
 	 * Creates a non-caching P2Provisioner for simple use cases.
 	 * <p>
-	 * All queries are serialized on {@code P2Provisioner.class}. Gradle may fingerprint
+	 * Only the Solstice query and the extraction of nested jars hold the P2 cache lock (see {@link P2CacheLock}),
+	 * which is shared by this JVM and, through a file lock, by other processes. Gradle may fingerprint
 	 * many Spotless tasks in parallel; each fingerprint serializes the equality
 	 * {@code ConfigurationCacheHackList}, which eagerly resolves Eclipse/P2 jars.
 	 * Concurrent Solstice queries race on the on-disk cache and fail with
@@ -61,31 +68,28 @@ public interface P2Provisioner {
 	 * "ConfigurationCacheHackList cannot be serialized"
 	 * (<a href="https://github.com/diffplug/spotless/issues/3004">#3004</a>,
 	 * <a href="https://github.com/diffplug/spotless/issues/2331">#2331</a>).
+	 * Resolving the jars which are on Maven Central, usually the slow part, runs outside the lock,
+	 * so independent Eclipse formatter setups download their jars in parallel.
 	 */
 	static P2Provisioner createDefault() {
 		return (modelWrapper, mavenProvisioner, cacheDirectory) -> {
-			// Serialize all P2 queries in this JVM — Solstice's cache is not concurrent-safe.
-			synchronized (P2Provisioner.class) {
-				try {
-					if (cacheDirectory != null) {
-						CacheLocations.override_p2data = cacheDirectory;
-					}
-					P2Model model = modelWrapper.unwrap();
-					P2QueryResult query = model.query(P2ClientCache.PREFER_OFFLINE, P2QueryCache.ALLOW);
-					var classpath = new ArrayList<File>();
-					var mavenDeps = new ArrayList<String>();
-					mavenDeps.add("dev.equo.ide:solstice:1.8.2");
-					mavenDeps.add("com.diffplug.durian:durian-swt.os:4.3.1");
-					mavenDeps.addAll(query.getJarsOnMavenCentral());
-					classpath.addAll(mavenProvisioner.provisionWithTransitives(false, mavenDeps));
-					classpath.addAll(query.getJarsNotOnMavenCentral());
+			try {
+				P2QueryResult query = P2CacheLock.call(cacheDirectory, () -> modelWrapper.unwrap().query(P2ClientCache.PREFER_OFFLINE, P2QueryCache.ALLOW));
+				var mavenDeps = new ArrayList<String>(SOLSTICE_CLASSPATH);
+				mavenDeps.addAll(query.getJarsOnMavenCentral());
+				var classpath = new ArrayList<File>(mavenProvisioner.provisionWithTransitives(false, mavenDeps));
+				classpath.addAll(query.getJarsNotOnMavenCentral());
+				List<File> nestedJars = P2CacheLock.call(cacheDirectory, () -> {
+					var extracted = new ArrayList<File>();
 					for (var nested : NestedJars.inFiles(query.getJarsNotOnMavenCentral()).extractAllNestedJars()) {
-						classpath.add(nested.getValue());
+						extracted.add(nested.getValue());
 					}
-					return classpath;
-				} catch (Exception e) {
-					throw new IOException("Failed to provision P2 dependencies", e);
-				}
+					return extracted;
+				});
+				classpath.addAll(nestedJars);
+				return classpath;
+			} catch (Exception e) {
+				throw new IOException("Failed to provision P2 dependencies", e);
 			}
 		};
 	}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless.extra;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import org.eclipse.jgit.lib.Constants;
+
+import com.diffplug.spotless.AtomicFiles;
+import com.diffplug.spotless.FileSignature;
+import com.diffplug.spotless.LineEnding;
+import com.diffplug.spotless.ThrowingEx;
+
+/**
+ * Remembers on disk which files of a target don't have the default line ending, keyed by everything that
+ * depends on: the git config and info/global attributes (see {@code RuntimeInit#fingerprint()}), the content of
+ * every {@code .gitattributes} above the files, and the paths of the files themselves. A repository whose
+ * attributes haven't changed then skips matching every file against the attribute rules.
+ */
+final class PersistedEndings {
+	static volatile @Nullable Path persistentDir;
+
+	static {
+		String dir = System.getProperty("spotless.lineEndings.cacheDir");
+		if (dir != null && !dir.isEmpty()) {
+			persistentDir = Path.of(dir);
+		}
+	}
+
+	private PersistedEndings() {}
+
+	static synchronized void persistIn(Path dir) {
+		if (persistentDir == null) {
+			persistentDir = dir;
+		}
+	}
+
+	/** Returns the cache entry for the given files, or null if there is no persistent directory. */
+	static @Nullable Path entryFor(String runtimeFingerprint, List<File> files) throws IOException {
+		Path dir = persistentDir;
+		if (dir == null) {
+			return null;
+		}
+		MessageDigest digest = ThrowingEx.get(() -> MessageDigest.getInstance("SHA-256"));
+		update(digest, runtimeFingerprint);
+		List<String> paths = new ArrayList<>(files.size());
+		Set<File> folders = new HashSet<>();
+		for (File file : files) {
+			paths.add(FileSignature.pathNativeToUnix(file.getAbsolutePath()));
+			// once a folder has been seen, so have all of its parents
+			File parent = file.getAbsoluteFile().getParentFile();
+			while (parent != null && folders.add(parent)) {
+				parent = parent.getParentFile();
+			}
+		}
+		paths.sort(null);
+		for (String path : paths) {
+			update(digest, path);
+		}
+		List<File> attributesFiles = new ArrayList<>();
+		for (File folder : folders) {
+			File attributes = new File(folder, Constants.DOT_GIT_ATTRIBUTES);
+			if (attributes.isFile()) {
+				attributesFiles.add(attributes);
+			}
+		}
+		attributesFiles.sort(null);
+		for (File attributes : attributesFiles) {
+			update(digest, attributes.getPath());
+			digest.update(Files.readAllBytes(attributes.toPath()));
+		}
+		return dir.resolve(HexFormat.of().formatHex(digest.digest()) + ".txt");
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		digest.update(value.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+
+	/** Returns the non-default endings by subpath, or null if there are none persisted. */
+	static @Nullable Map<String, String> read(Path entry) {
+		if (!Files.isRegularFile(entry)) {
+			return null;
+		}
+		try {
+			Map<String, String> endings = new HashMap<>();
+			for (String line : Files.readAllLines(entry, StandardCharsets.UTF_8)) {
+				int tab = line.indexOf('\t');
+				endings.put(line.substring(tab + 1), LineEnding.valueOf(line.substring(0, tab)).str());
+			}
+			return endings;
+		} catch (IOException | RuntimeException e) {
+			// a corrupt entry is simply computed again and overwritten
+			return null;
+		}
+	}
+
+	static void write(Path entry, Map<String, String> nonDefaultEndings) {
+		List<String> lines = new ArrayList<>(nonDefaultEndings.size());
+		nonDefaultEndings.forEach((subpath, ending) -> lines.add(nameOf(ending) + "\t" + subpath));
+		// the persistent cache is only an optimization, the computed endings are still valid
+		AtomicFiles.writeBestEffort(entry, temp -> Files.write(temp, lines, StandardCharsets.UTF_8));
+	}
+
+	private static String nameOf(String ending) {
+		for (LineEnding lineEnding : new LineEnding[]{LineEnding.UNIX, LineEnding.WINDOWS, LineEnding.MAC_CLASSIC}) {
+			if (lineEnding.str().equals(ending)) {
+				return lineEnding.name();
+			}
+		}
+		throw new IllegalArgumentException("Unknown line ending " + ending);
+	}
+}
@@ -15,10 +15,13 @@
  */
 package com.diffplug.spotless.extra.groovy;
 
+import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 import java.util.Properties;
 
+import javax.annotation.Nullable;
+
 import com.diffplug.common.collect.ImmutableMap;
 import com.diffplug.spotless.FormatterFunc;
 import com.diffplug.spotless.Jvm;
@@ -84,6 +87,14 @@ public final class GrEclipseFormatterStep {
 				}
 				super.setVersion(version);
 			}
+
+			@Override
+			public void setLockfile(@Nullable File lockfile) {
+				if (lockfile != null) {
+					// a lockfile only lists Maven coordinates, but Groovy-Eclipse is published on its own P2 repository only
+					throw new IllegalArgumentException(NAME + " needs jars which are not on Maven Central, so it can't be provisioned from a lockfile");
+				}
+			}
 		};
 	}
 
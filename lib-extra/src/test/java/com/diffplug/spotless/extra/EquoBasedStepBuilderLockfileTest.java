@@ -28,19 +28,25 @@ import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import com.diffplug.common.collect.ImmutableMap;
 import com.diffplug.spotless.Provisioner;
 import com.diffplug.spotless.StepHarness;
+import com.diffplug.spotless.extra.groovy.GrEclipseFormatterStep;
 
 import dev.equo.solstice.p2.P2Model;
+import dev.equo.solstice.p2.P2QueryResult;
 
 class EquoBasedStepBuilderLockfileTest {
 
@@ -98,7 +104,75 @@ class EquoBasedStepBuilderLockfileTest {
 		verifyNoInteractions(p2Provisioner);
 	}
 
+	@Test
+	void userLockfileTakesPrecedenceOverEmbeddedLockfile(@TempDir Path tempDir) throws Exception {
+		P2Provisioner p2Provisioner = mock();
+		Provisioner mavenProvisioner = mock();
+		File dummyJar = tempDir.resolve("spotless-lockfile-test.jar").toFile();
+		assertTrue(dummyJar.createNewFile());
+		File lockfile = tempDir.resolve("user.lockfile").toFile();
+		Files.writeString(lockfile.toPath(), "# pinned for offline builds\norg.eclipse.jdt:org.eclipse.jdt.core:3.44.0\n\n", StandardCharsets.UTF_8);
+		when(mavenProvisioner.provisionWithTransitives(eq(false), anyCollection())).thenReturn(Set.of(dummyJar));
+		EquoBasedStepBuilder builder = builderWithLockfilePath("/com/diffplug/spotless/extra/two-deps.lockfile",
+				p2Provisioner, mavenProvisioner);
+		builder.setLockfile(lockfile);
+
+		StepHarness.forStep(builder.build()).test("class T {}", "class T {}");
+
+		verify(mavenProvisioner).provisionWithTransitives(eq(false), assertArg((Collection<String> coords) -> assertThat(coords)
+				.containsExactly("org.eclipse.jdt:org.eclipse.jdt.core:3.44.0")));
+		verifyNoInteractions(p2Provisioner);
+	}
+
+	@Test
+	void greclipseRejectsLockfile(@TempDir Path tempDir) {
+		EquoBasedStepBuilder builder = GrEclipseFormatterStep.createBuilder(mock(), mock());
+		File lockfile = tempDir.resolve("greclipse.lockfile").toFile();
+		assertThat(assertThrows(IllegalArgumentException.class, () -> builder.setLockfile(lockfile)))
+				.hasMessageContaining("not on Maven Central");
+	}
+
+	@Test
+	void generateLockfileListsSolsticeAndSortedMavenCentralJars(@TempDir Path tempDir) throws Exception {
+		P2QueryResult query = mock();
+		when(query.getJarsOnMavenCentral()).thenReturn(List.of(
+				"org.eclipse.jdt:org.eclipse.jdt.core:3.45.0",
+				"org.eclipse.jdt:ecj:3.45.0",
+				"org.eclipse.jdt:org.eclipse.jdt.core:3.45.0"));
+		when(query.getJarsNotOnMavenCentral()).thenReturn(List.of());
+		EquoBasedStepBuilder builder = builderWithQuery(query);
+		builder.setCacheDirectory(tempDir.resolve("p2-data").toFile());
+
+		StringBuilder expected = new StringBuilder("# Spotless lockfile test formatter 4.40\n");
+		P2Provisioner.SOLSTICE_CLASSPATH.forEach(coordinate -> expected.append(coordinate).append('\n'));
+		expected.append("org.eclipse.jdt:ecj:3.45.0\n");
+		expected.append("org.eclipse.jdt:org.eclipse.jdt.core:3.45.0\n");
+		assertThat(builder.generateLockfile()).isEqualTo(expected.toString());
+	}
+
+	@Test
+	void generateLockfileRejectsJarsNotOnMavenCentral(@TempDir Path tempDir) {
+		P2QueryResult query = mock();
+		when(query.getJarsOnMavenCentral()).thenReturn(List.of("org.eclipse.jdt:ecj:3.45.0"));
+		when(query.getJarsNotOnMavenCentral()).thenReturn(List.of(new File("org.codehaus.groovy.eclipse.core.jar")));
+		EquoBasedStepBuilder builder = builderWithQuery(query);
+		builder.setCacheDirectory(tempDir.resolve("p2-data").toFile());
+
+		assertThat(assertThrows(IllegalStateException.class, builder::generateLockfile))
+				.hasMessageContaining("not on Maven Central");
+	}
+
+	private static EquoBasedStepBuilder builderWithQuery(P2QueryResult query) {
+		P2Model model = mock();
+		when(model.query(any(), any())).thenReturn(query);
+		return builder(model, null, mock(), mock());
+	}
+
 	private static EquoBasedStepBuilder builderWithLockfilePath(String lockfilePath, P2Provisioner p2Provisioner, Provisioner mavenProvisioner) {
+		return builder(new P2Model(), lockfilePath, p2Provisioner, mavenProvisioner);
+	}
+
+	private static EquoBasedStepBuilder builder(P2Model model, @Nullable String lockfilePath, P2Provisioner p2Provisioner, Provisioner mavenProvisioner) {
 		return new EquoBasedStepBuilder(
 				"lockfile test formatter",
 				mavenProvisioner,
@@ -108,11 +182,11 @@ class EquoBasedStepBuilderLockfileTest {
 				ImmutableMap.builder()) {
 			@Override
 			protected P2Model model(String version) {
-				return new P2Model();
+				return model;
 			}
 
 			@Override
-			protected String lockfileResourcePath(String version) {
+			protected @Nullable String lockfileResourcePath(String version) {
 				return lockfilePath;
 			}
 		};
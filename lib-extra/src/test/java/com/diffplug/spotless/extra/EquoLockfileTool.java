@@ -0,0 +1,96 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless.extra;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import com.diffplug.spotless.Provisioner;
+import com.diffplug.spotless.extra.cpp.EclipseCdtFormatterStep;
+
+/**
+ * Executable class which resolves an Equo based Eclipse formatter through P2 and writes the lockfile
+ * {@link EquoBasedStepBuilder} embeds for it, so that the formatter is provisioned from Maven coordinates only.
+ * <p>
+ * Usage: {@code EquoLockfileTool cdt [version...]}, the versions default to the formatter's default version.
+ * The JDT lockfiles have their own tool with verification,
+ * {@link com.diffplug.spotless.extra.java.EclipseJdtLockfileMetadataTool}, and Groovy-Eclipse depends on jars
+ * which are not on Maven Central, so it can't be locked at all.
+ */
+public class EquoLockfileTool {
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.err.println("Usage: EquoLockfileTool cdt [version...]");
+			System.exit(2);
+		}
+		String formatter = args[0];
+		List<String> versions = args.length > 1 ? Arrays.asList(args).subList(1, args.length) : List.of(defaultVersion(formatter));
+		int failures = 0;
+		for (String version : versions) {
+			try {
+				EquoBasedStepBuilder builder = createBuilder(formatter);
+				builder.setVersion(version);
+				Path lockfile = resourcesDir().resolve(builder.lockfileResourcePath(version).substring(1));
+				Files.createDirectories(lockfile.getParent());
+				Files.writeString(lockfile, builder.generateLockfile(), StandardCharsets.UTF_8);
+				System.out.println("WROTE   " + formatter + " v" + version + " -> " + lockfile);
+			} catch (Exception e) {
+				System.err.println("ERROR   " + formatter + " v" + version + " -> " + e.getMessage());
+				failures++;
+			}
+		}
+		if (failures > 0) {
+			System.exit(1);
+		}
+	}
+
+	private static EquoBasedStepBuilder createBuilder(String formatter) {
+		// only the P2 query runs, nothing is provisioned
+		Provisioner provisioner = (withTransitives, mavenCoordinates) -> {
+			throw new UnsupportedOperationException();
+		};
+		P2Provisioner p2Provisioner = (modelWrapper, mavenProvisioner, cacheDirectory) -> {
+			throw new UnsupportedOperationException();
+		};
+		switch (formatter) {
+		case "cdt":
+			return EclipseCdtFormatterStep.createBuilder(provisioner, p2Provisioner);
+		default:
+			throw new IllegalArgumentException("Unknown formatter " + formatter + ", expected cdt");
+		}
+	}
+
+	private static String defaultVersion(String formatter) {
+		switch (formatter) {
+		case "cdt":
+			return EclipseCdtFormatterStep.defaultVersion();
+		default:
+			throw new IllegalArgumentException("Unknown formatter " + formatter + ", expected cdt");
+		}
+	}
+
+	private static Path resourcesDir() {
+		Path fromRepoRoot = Path.of("lib-extra", "src", "main", "resources");
+		if (Files.isDirectory(fromRepoRoot)) {
+			return fromRepoRoot;
+		}
+		return Path.of("src", "main", "resources");
+	}
+}
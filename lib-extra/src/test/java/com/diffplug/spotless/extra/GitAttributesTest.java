@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2025 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -92,6 +92,76 @@ class GitAttributesTest extends ResourceHarness {
 		Assertions.assertThat(policy.getEndingFor(newFile("subfolder/MANIFEST.MF"))).isEqualTo("\r\n");
 	}
 
+	@Test
+	void lazyPolicyTest() {
+		setFile(".gitattributes").toContent(StringPrinter.buildStringFromLines(
+				"* eol=lf",
+				"*.MF eol=crlf"));
+		LineEnding.Policy policy = LineEnding.GIT_ATTRIBUTES_LAZY.createPolicy(rootFolder(), this::testFiles);
+		Assertions.assertThat(policy.getEndingFor(newFile("someFile"))).isEqualTo("\n");
+		Assertions.assertThat(policy.getEndingFor(newFile("subfolder/someFile"))).isEqualTo("\n");
+		Assertions.assertThat(policy.getEndingFor(newFile("MANIFEST.MF"))).isEqualTo("\r\n");
+		Assertions.assertThat(policy.getEndingFor(newFile("subfolder/MANIFEST.MF"))).isEqualTo("\r\n");
+	}
+
+	@Test
+	void lazyPolicyEqualityTest() throws GitAPIException {
+		try (Git git = Git.init().setDirectory(rootFolder()).call()) {
+			setFile(".gitattributes").toContent("* eol=lf");
+			setFile("subfolder/.gitattributes").toContent("*.MF eol=crlf");
+			git.add().addFilepattern(".").call();
+		}
+		LineEnding.Policy policy = LineEnding.GIT_ATTRIBUTES_LAZY.createPolicy(rootFolder(), this::testFiles);
+		Assertions.assertThat(policy).isEqualTo(LineEnding.GIT_ATTRIBUTES_LAZY.createPolicy(rootFolder(), this::testFiles));
+		// a tracked .gitattributes below the project is part of the summary
+		setFile("subfolder/.gitattributes").toContent("*.MF eol=lf");
+		Assertions.assertThat(policy).isNotEqualTo(LineEnding.GIT_ATTRIBUTES_LAZY.createPolicy(rootFolder(), this::testFiles));
+	}
+
+	@Test
+	void parallelMatchingTest() {
+		setFile(".gitattributes").toContent(StringPrinter.buildStringFromLines(
+				"* eol=lf",
+				"*.MF eol=crlf"));
+		List<File> files = new ArrayList<>();
+		for (int folder = 0; folder < 20; ++folder) {
+			if (folder % 3 == 0) {
+				setFile("folder" + folder + "/.gitattributes").toContent("*.txt eol=crlf");
+			}
+			for (int file = 0; file < 50; ++file) {
+				for (String name : Arrays.asList("file" + file + ".txt", "file" + file + ".MF", "file" + file)) {
+					setFile("folder" + folder + "/" + name).toContent("");
+					files.add(newFile("folder" + folder + "/" + name));
+				}
+			}
+		}
+		LineEnding.Policy parallel = LineEnding.GIT_ATTRIBUTES.createPolicy(rootFolder(), () -> files);
+		LineEnding.Policy perFile = LineEnding.GIT_ATTRIBUTES_LAZY.createPolicy(rootFolder(), () -> files);
+		for (File file : files) {
+			Assertions.assertThat(parallel.getEndingFor(file)).as(file.getPath()).isEqualTo(perFile.getEndingFor(file));
+		}
+		Assertions.assertThat(parallel.getEndingFor(newFile("folder3/file0.txt"))).isEqualTo("\r\n");
+		Assertions.assertThat(parallel.getEndingFor(newFile("folder4/file0.txt"))).isEqualTo("\n");
+	}
+
+	@Test
+	void indexedAttributesAreReadOncePerIndex() throws GitAPIException, IOException {
+		try (Git git = Git.init().setDirectory(rootFolder()).call()) {
+			setFile("subfolder/.gitattributes").toContent("*.MF eol=crlf");
+			git.add().addFilepattern(".").call();
+			File index = newFile(".git/index");
+			// old enough that an unchanged timestamp can be trusted
+			Assertions.assertThat(index.setLastModified(System.currentTimeMillis() - 60_000)).isTrue();
+			List<String> first = GitAttributesLineEndings.RuntimeInit.indexedAttributesOf(index);
+			Assertions.assertThat(first).containsExactly("subfolder/.gitattributes");
+			Assertions.assertThat(GitAttributesLineEndings.RuntimeInit.indexedAttributesOf(index)).isSameAs(first);
+
+			setFile("other/.gitattributes").toContent("* eol=lf");
+			git.add().addFilepattern(".").call();
+			Assertions.assertThat(GitAttributesLineEndings.RuntimeInit.indexedAttributesOf(index)).containsExactly("other/.gitattributes", "subfolder/.gitattributes");
+		}
+	}
+
 	@Test
 	void policyDefaultLineEndingTest() throws GitAPIException {
 		Git git = Git.init().setDirectory(rootFolder()).call();
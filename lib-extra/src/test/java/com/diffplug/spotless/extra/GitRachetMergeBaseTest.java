@@ -1,5 +1,5 @@
 /*
- * Copyright 2020-2025 DiffPlug
+ * Copyright 2020-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,6 +15,7 @@
  */
 package com.diffplug.spotless.extra;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.File;
@@ -259,6 +260,31 @@ class GitRachetMergeBaseTest extends ResourceHarness {
 		}
 	}
 
+	@Test
+	void testDirtyFilesOfSubproject() throws IllegalStateException, GitAPIException, IOException {
+		try (Git git = initRepo()) {
+			setFile("project1/src/Main.java").toContent("class Main {}");
+			setFile("project1/src/Removed.java").toContent("class Removed {}");
+			setFile("project2/src/Other.java").toContent("class Other {}");
+			setFile(".gitignore").toContent("build/");
+			addAndCommit(git, "Add projects");
+
+			setFile("project1/src/Main.java").toContent("class Main { void change() {} }");
+			setFile("project1/src/Added.java").toContent("class Added {}");
+			setFile("project1/build/Generated.java").toContent("class Generated {}");
+			new File(rootFolder(), "project1/src/Removed.java").delete();
+			setFile("project2/src/Other.java").toContent("class Other { void change() {} }");
+
+			GitRatchetSimple ratchet = new GitRatchetSimple();
+			ObjectId sha = ratchet.rootTreeShaOf(rootFolder(), "main");
+			GitRatchet.DirtyFiles dirtyFiles = ratchet.dirtyFilesOf(newFile("project1"), sha);
+			assertThat(dirtyFiles.relativePathsUnix()).containsExactlyInAnyOrder(
+					"project1/src/Main.java", "project1/src/Added.java", "project1/src/Removed.java");
+			assertThat(dirtyFiles.isClean(newFile("project1/src/Main.java"))).isFalse();
+			assertThat(dirtyFiles.isClean(newFile("project1/build/Generated.java"))).isTrue();
+		}
+	}
+
 	static class GitRatchetSimple extends GitRatchet<File> {
 		@Override
 		protected File getDir(File project) {
@@ -292,6 +318,10 @@ class GitRachetMergeBaseTest extends ResourceHarness {
 			if (actual != expected) {
 				throw new AssertionError("Expected " + filename + " to be " + (expected ? "clean" : "dirty") + " relative to " + ratchetFroms[i]);
 			}
+			boolean actualBulk = ratchet.dirtyFilesOf(rootFolder(), shas[i]).isClean(newFile(filename));
+			if (actualBulk != expected) {
+				throw new AssertionError("Expected dirtyFilesOf to find " + filename + " " + (expected ? "clean" : "dirty") + " relative to " + ratchetFroms[i]);
+			}
 		}
 
 		public void allClean() throws IOException {
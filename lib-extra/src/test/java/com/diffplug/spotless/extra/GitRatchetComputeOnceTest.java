@@ -0,0 +1,139 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless.extra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.jupiter.api.Test;
+
+import com.diffplug.spotless.ClearGitConfig;
+import com.diffplug.spotless.ResourceHarness;
+
+@ClearGitConfig
+class GitRatchetComputeOnceTest extends ResourceHarness {
+	private static final int CALLERS = 8;
+
+	@Test
+	void concurrentRootTreeShaCallersShareOneComputation() throws Exception {
+		try (Git git = initRepo(); CountingRatchet ratchet = new CountingRatchet()) {
+			List<ObjectId> shas = concurrently(() -> ratchet.rootTreeShaOf(rootFolder(), "HEAD"));
+			assertThat(shas).containsOnly(shas.get(0));
+			assertThat(ratchet.mergeBases).hasValue(1);
+		}
+	}
+
+	@Test
+	void concurrentSubtreeShaCallersShareOneComputation() throws Exception {
+		try (Git git = initRepo(); CountingRatchet ratchet = new CountingRatchet()) {
+			ObjectId rootTreeSha = ratchet.rootTreeShaOf(rootFolder(), "HEAD");
+			ratchet.repositoryLookups.set(0);
+			List<ObjectId> shas = concurrently(() -> ratchet.subtreeShaOf(newFile("sub"), rootTreeSha));
+			assertThat(shas).containsOnly(shas.get(0)).doesNotContain(ObjectId.zeroId());
+			assertThat(ratchet.repositoryLookups).hasValue(1);
+		}
+	}
+
+	@Test
+	void ioExceptionsArePreservedAndNotCached() throws Exception {
+		try (Git git = initRepo(); CountingRatchet ratchet = new CountingRatchet()) {
+			IOException failure = new IOException("corrupt pack");
+			ratchet.mergeBaseFailure = failure;
+			assertThatThrownBy(() -> ratchet.rootTreeShaOf(rootFolder(), "HEAD")).hasRootCause(failure);
+			assertThatThrownBy(() -> ratchet.rootTreeShaOf(rootFolder(), "HEAD")).hasRootCause(failure);
+			assertThat(ratchet.mergeBases).hasValue(2);
+
+			ratchet.mergeBaseFailure = null;
+			assertThat(ratchet.rootTreeShaOf(rootFolder(), "HEAD")).isNotNull();
+		}
+	}
+
+	private Git initRepo() throws IOException, GitAPIException {
+		Git git = Git.init().setDirectory(rootFolder()).call();
+		setFile("sub/a.txt").toContent("a");
+		git.add().addFilepattern(".").call();
+		git.commit().setMessage("init").call();
+		return git;
+	}
+
+	private static <T> List<T> concurrently(Callable<T> call) throws Exception {
+		CyclicBarrier barrier = new CyclicBarrier(CALLERS);
+		ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+		try {
+			List<Future<T>> futures = new ArrayList<>();
+			for (int i = 0; i < CALLERS; ++i) {
+				futures.add(executor.submit(() -> {
+					barrier.await();
+					return call.call();
+				}));
+			}
+			List<T> results = new ArrayList<>();
+			for (Future<T> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/** Counts the expensive lookups, which are slow enough for the other callers to arrive while they run. */
+	static class CountingRatchet extends GitRachetMergeBaseTest.GitRatchetSimple {
+		final AtomicInteger mergeBases = new AtomicInteger();
+		final AtomicInteger repositoryLookups = new AtomicInteger();
+		volatile IOException mergeBaseFailure;
+
+		@Override
+		protected ObjectId mergeBaseTreeOf(Repository repo, ObjectId ratchetFrom, ObjectId head) throws IOException {
+			mergeBases.incrementAndGet();
+			pause();
+			if (mergeBaseFailure != null) {
+				throw mergeBaseFailure;
+			}
+			return super.mergeBaseTreeOf(repo, ratchetFrom, head);
+		}
+
+		@Override
+		protected Repository repositoryFor(File project) throws IOException {
+			repositoryLookups.incrementAndGet();
+			pause();
+			return super.repositoryFor(project);
+		}
+
+		private static void pause() {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless.extra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.junit.jupiter.api.Test;
+
+import com.diffplug.spotless.ClearGitConfig;
+import com.diffplug.spotless.ResourceHarness;
+
+@ClearGitConfig
+class GitVerifiedBlobsTest extends ResourceHarness {
+	private static final long TODAY = 20_000;
+
+	@Test
+	void indexBlobsAreTheStagedUnmodifiedFiles() throws GitAPIException, IOException {
+		try (Git git = Git.init().setDirectory(rootFolder()).call()) {
+			setFile("project1/src/Main.java").toContent("class Main {}");
+			setFile("project1/src/Staged.java").toContent("class Staged {}");
+			setFile("project2/src/Other.java").toContent("class Other {}");
+			git.add().addFilepattern(".").call();
+			git.commit().setMessage("Add projects").call();
+
+			setFile("project1/src/Main.java").toContent("class Main { void change() {} }");
+			setFile("project1/src/Staged.java").toContent("class Staged { void change() {} }");
+			git.add().addFilepattern("project1/src/Staged.java").call();
+			setFile("project1/src/Added.java").toContent("class Added {}");
+
+			GitRachetMergeBaseTest.GitRatchetSimple ratchet = new GitRachetMergeBaseTest.GitRatchetSimple();
+			assertThat(ratchet.isInRepository(newFile("project1"))).isTrue();
+			GitRatchet.IndexBlobs indexBlobs = ratchet.indexBlobsOf(newFile("project1"));
+			assertThat(indexBlobs.blobOf(newFile("project1/src/Main.java"))).isNull();
+			assertThat(indexBlobs.blobOf(newFile("project1/src/Added.java"))).isNull();
+			assertThat(indexBlobs.blobOf(newFile("project2/src/Other.java"))).isNull();
+			assertThat(indexBlobs.blobOf(newFile("project1/src/Staged.java")))
+					.isEqualTo(git.getRepository().readDirCache().getEntry("project1/src/Staged.java").getObjectId());
+		}
+	}
+
+	@Test
+	void verifiedBlobsAreKeyedByFormatterPathAndLineEnding() {
+		ObjectId blob = blobOf("class Staged {}");
+		File cacheDir = newFile("verified");
+		GitVerifiedBlobs verifiedBlobs = GitVerifiedBlobs.load(cacheDir, "formatter", TODAY);
+		assertThat(verifiedBlobs.isVerified(blob, "src/Staged.java", "\n")).isFalse();
+		verifiedBlobs.verified(blob, "src/Staged.java", "\n");
+		verifiedBlobs.save();
+
+		verifiedBlobs = GitVerifiedBlobs.load(cacheDir, "formatter", TODAY);
+		assertThat(verifiedBlobs.isVerified(blob, "src/Staged.java", "\n")).isTrue();
+		assertThat(verifiedBlobs.isVerified(blob, "src/Staged.java", "\r\n")).isFalse();
+		assertThat(verifiedBlobs.isVerified(blob, "src/Other.java", "\n")).isFalse();
+		assertThat(GitVerifiedBlobs.load(cacheDir, "other formatter", TODAY).isVerified(blob, "src/Staged.java", "\n")).isFalse();
+	}
+
+	@Test
+	void convertedCheckoutsAreNotTheBlob() {
+		ObjectId blob = blobOf("a\nb\n");
+		assertThat(GitVerifiedBlobs.isContentOf(blob, "a\nb\n".getBytes(StandardCharsets.UTF_8))).isTrue();
+		// e.g. checked out with core.autocrlf=true
+		assertThat(GitVerifiedBlobs.isContentOf(blob, "a\r\nb\r\n".getBytes(StandardCharsets.UTF_8))).isFalse();
+	}
+
+	@Test
+	void savesOfOtherClonesAreMerged() {
+		File cacheDir = newFile("verified");
+		GitVerifiedBlobs first = GitVerifiedBlobs.load(cacheDir, "formatter", TODAY);
+		GitVerifiedBlobs second = GitVerifiedBlobs.load(cacheDir, "formatter", TODAY);
+		first.verified(blobOf("first"), "First.java", "\n");
+		first.save();
+		second.verified(blobOf("second"), "Second.java", "\n");
+		second.save();
+
+		GitVerifiedBlobs merged = GitVerifiedBlobs.load(cacheDir, "formatter", TODAY);
+		assertThat(merged.isVerified(blobOf("first"), "First.java", "\n")).isTrue();
+		assertThat(merged.isVerified(blobOf("second"), "Second.java", "\n")).isTrue();
+	}
+
+	@Test
+	void unusedEntriesExpire() {
+		File cacheDir = newFile("verified");
+		GitVerifiedBlobs verifiedBlobs = GitVerifiedBlobs.load(cacheDir, "formatter", TODAY);
+		verifiedBlobs.verified(blobOf("used"), "Used.java", "\n");
+		verifiedBlobs.verified(blobOf("unused"), "Unused.java", "\n");
+		verifiedBlobs.save();
+
+		// using an entry keeps it
+		long later = TODAY + GitVerifiedBlobs.MAX_UNUSED_DAYS;
+		verifiedBlobs = GitVerifiedBlobs.load(cacheDir, "formatter", later);
+		assertThat(verifiedBlobs.isVerified(blobOf("used"), "Used.java", "\n")).isTrue();
+		verifiedBlobs.save();
+
+		// and the next save drops what no clone has used for too long
+		verifiedBlobs = GitVerifiedBlobs.load(cacheDir, "formatter", later + 1);
+		verifiedBlobs.verified(blobOf("new"), "New.java", "\n");
+		verifiedBlobs.save();
+
+		verifiedBlobs = GitVerifiedBlobs.load(cacheDir, "formatter", later + 1);
+		assertThat(verifiedBlobs.isVerified(blobOf("unused"), "Unused.java", "\n")).isFalse();
+		assertThat(verifiedBlobs.isVerified(blobOf("used"), "Used.java", "\n")).isTrue();
+	}
+
+	private static ObjectId blobOf(String content) {
+		try (ObjectInserter.Formatter formatter = new ObjectInserter.Formatter()) {
+			return formatter.idFor(Constants.OBJ_BLOB, content.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+}
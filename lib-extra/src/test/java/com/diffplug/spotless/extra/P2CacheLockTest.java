@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless.extra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.equo.solstice.p2.CacheLocations;
+
+class P2CacheLockTest {
+	private File previousOverride;
+
+	@BeforeEach
+	void rememberCacheLocation() {
+		previousOverride = CacheLocations.override_p2data;
+	}
+
+	@AfterEach
+	void restoreCacheLocation() {
+		CacheLocations.override_p2data = previousOverride;
+	}
+
+	@Test
+	void waitsForFileLockHeldElsewhereInThisJvm(@TempDir Path tmp) throws Exception {
+		File p2data = tmp.resolve("p2-data").toFile();
+		CountDownLatch entered = new CountDownLatch(1);
+		CompletableFuture<Void> locked;
+
+		// e.g. an older copy of this class in another classloader, which doesn't share our monitor
+		try (FileChannel channel = FileChannel.open(tmp.resolve("p2-data.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+				FileLock ignored = channel.lock()) {
+			locked = CompletableFuture.runAsync(() -> {
+				try {
+					P2CacheLock.call(p2data, () -> {
+						entered.countDown();
+						return null;
+					});
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			assertThat(entered.await(200, TimeUnit.MILLISECONDS)).isFalse();
+		}
+
+		locked.get(10, TimeUnit.SECONDS);
+		assertThat(entered.getCount()).isZero();
+	}
+}
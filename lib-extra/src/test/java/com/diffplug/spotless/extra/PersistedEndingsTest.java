@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless.extra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.Nullable;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.diffplug.common.base.StringPrinter;
+import com.diffplug.spotless.ClearGitConfig;
+import com.diffplug.spotless.LineEnding;
+import com.diffplug.spotless.ResourceHarness;
+
+@ClearGitConfig
+class PersistedEndingsTest extends ResourceHarness {
+	private @Nullable Path previousDir;
+	private Path cacheDir;
+
+	@BeforeEach
+	void persistInTestFolder() throws IOException, GitAPIException {
+		previousDir = PersistedEndings.persistentDir;
+		cacheDir = newFolder("cache").toPath();
+		PersistedEndings.persistentDir = cacheDir;
+		Git.init().setDirectory(newFolder("project")).call().close();
+		setFile("project/.gitattributes").toContent(StringPrinter.buildStringFromLines(
+				"* eol=lf",
+				"*.MF eol=crlf"));
+		setFile("project/someFile").toContent("");
+		setFile("project/MANIFEST.MF").toContent("");
+	}
+
+	@AfterEach
+	void restorePersistentDir() {
+		PersistedEndings.persistentDir = previousDir;
+	}
+
+	@Test
+	void persistedEndingsAreReused() throws IOException {
+		assertThat(endingFor("someFile")).isEqualTo("\n");
+		assertThat(endingFor("MANIFEST.MF")).isEqualTo("\r\n");
+		List<Path> entries = entries();
+		assertThat(entries).hasSize(1);
+		assertThat(Files.readAllLines(entries.get(0), StandardCharsets.UTF_8)).containsExactly("WINDOWS\tMANIFEST.MF");
+
+		// the next policy for the same files reads the entry instead of matching the attributes
+		Files.write(entries.get(0), Arrays.asList("WINDOWS\tsomeFile"), StandardCharsets.UTF_8);
+		assertThat(endingFor("someFile")).isEqualTo("\r\n");
+		assertThat(endingFor("MANIFEST.MF")).isEqualTo("\n");
+	}
+
+	@Test
+	void changedGitattributesGetANewEntry() throws IOException {
+		assertThat(endingFor("MANIFEST.MF")).isEqualTo("\r\n");
+
+		setFile("project/.gitattributes").toContent("* eol=lf");
+		assertThat(endingFor("MANIFEST.MF")).isEqualTo("\n");
+		assertThat(entries()).hasSize(2);
+	}
+
+	@Test
+	void changedGitConfigGetsANewEntry() throws IOException {
+		setFile("project/.gitattributes").toContent("*.MF eol=crlf");
+		setFile("project/.git/config").toContent(StringPrinter.buildStringFromLines(
+				"[core]",
+				"eol=lf"));
+		assertThat(endingFor("someFile")).isEqualTo("\n");
+
+		setFile("project/.git/config").toContent(StringPrinter.buildStringFromLines(
+				"[core]",
+				"eol=crlf"));
+		assertThat(endingFor("someFile")).isEqualTo("\r\n");
+		assertThat(entries()).hasSize(2);
+	}
+
+	private String endingFor(String path) {
+		File projectDir = newFile("project");
+		List<File> files = Arrays.asList(newFile("project/someFile"), newFile("project/MANIFEST.MF"));
+		return LineEnding.GIT_ATTRIBUTES.createPolicy(projectDir, () -> files).getEndingFor(newFile("project/" + path));
+	}
+
+	private List<Path> entries() throws IOException {
+		try (Stream<Path> entries = Files.list(cacheDir)) {
+			return entries.collect(Collectors.toList());
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.CopyOption;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * Writes the files of the on-disk caches of Spotless, which can be shared by concurrent builds: each file is written
+ * to a temp file next to it, which is then moved into place, so that readers never see a partially written file.
+ */
+public final class AtomicFiles {
+	/** The suffix of the temp files, which are only left behind by a process that died while writing. */
+	public static final String TEMP_SUFFIX = ".tmp";
+
+	private AtomicFiles() {}
+
+	/** Writes the content of a file. */
+	@FunctionalInterface
+	public interface Content {
+		void writeTo(Path file) throws IOException;
+	}
+
+	/**
+	 * Writes the given file, replacing it if it exists. Since the caches are only an optimization, a file which can't
+	 * be written is skipped rather than failing the build.
+	 *
+	 * @return true if the file was written
+	 */
+	public static boolean writeBestEffort(Path file, Content content) {
+		try {
+			return write(file, true, content);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the given file. If it exists and {@code replaceExisting} is false, it is kept as it is, e.g. because a
+	 * concurrent writer stored the same content first. An atomic move may still replace a file which appears while
+	 * this one is written, so writers which don't replace must all write the same content. If the filesystem can't
+	 * move the temp file atomically, it is moved non-atomically instead.
+	 *
+	 * @return true if the file was written, false if it existed and wasn't replaced
+	 */
+	public static boolean write(Path file, boolean replaceExisting, Content content) throws IOException {
+		if (!replaceExisting && Files.exists(file)) {
+			return false;
+		}
+		Files.createDirectories(file.getParent());
+		Path temp = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + TEMP_SUFFIX);
+		try {
+			content.writeTo(temp);
+			CopyOption[] replace = replaceExisting ? new CopyOption[]{StandardCopyOption.REPLACE_EXISTING} : new CopyOption[0];
+			CopyOption[] atomic = replaceExisting
+					? new CopyOption[]{StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING}
+					: new CopyOption[]{StandardCopyOption.ATOMIC_MOVE};
+			try {
+				try {
+					Files.move(temp, file, atomic);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(temp, file, replace);
+				}
+				return true;
+			} catch (FileAlreadyExistsException e) {
+				return false;
+			}
+		} finally {
+			try {
+				Files.deleteIfExists(temp);
+			} catch (IOException e) {
+				// best effort
+			}
+		}
+	}
+}
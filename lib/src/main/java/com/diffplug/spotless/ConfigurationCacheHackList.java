@@ -20,9 +20,13 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serial;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HexFormat;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Objects;
@@ -57,6 +61,10 @@ import com.diffplug.spotless.yaml.SerializeToByteArrayHack;
  * Because it is not possible to provide both at the same time.
  * It is a horrific hack, but it works, and it's the only way I can figure
  * to make Spotless work with all of Gradle's cache systems at once.
+ *
+ * Serializing every step's equality state each time Gradle fingerprints its
+ * inputs is expensive, so {@link #fingerprints()} offers a compact stand-in
+ * for use as the actual {@code @Input}.
  */
 public final class ConfigurationCacheHackList implements Serializable {
 	@Serial
@@ -72,6 +80,9 @@ public final class ConfigurationCacheHackList implements Serializable {
 	 */
 	@Nullable private transient volatile String serializationFailure;
 
+	/** Cached result of {@link #fingerprints()}, reset whenever the list changes. */
+	@Nullable private transient volatile List<String> fingerprints;
+
 	private boolean shouldWeSerializeToByteArrayFirst() {
 		return backingList.stream().anyMatch(SerializeToByteArrayHack.class::isInstance);
 	}
@@ -149,9 +160,11 @@ public final class ConfigurationCacheHackList implements Serializable {
 
 	public void clear() {
 		backingList.clear();
+		fingerprints = null;
 	}
 
 	public void addAll(Collection<? extends FormatterStep> c) {
+		fingerprints = null;
 		for (FormatterStep step : c) {
 			if (step instanceof FormatterStepSerializationRoundtrip roundtrip) {
 				var clone = roundtrip.hackClone(optimizeForEquality);
@@ -174,6 +187,43 @@ public final class ConfigurationCacheHackList implements Serializable {
 		return result;
 	}
 
+	/**
+	 * Returns one SHA-256 per step, over the step's type, name, serialized function and equality state, computed
+	 * once and cached until the list changes. Unlike the serialized form of this list, these are cheap
+	 * for Gradle to fingerprint, and they are just as free of absolute paths as the equality state.
+	 */
+	public List<String> fingerprints() {
+		List<String> result = fingerprints;
+		if (result == null) {
+			List<String> computed = new ArrayList<>(backingList.size());
+			for (FormatterStep step : getSteps()) {
+				computed.add(fingerprint(step));
+			}
+			result = Collections.unmodifiableList(computed);
+			fingerprints = result;
+		}
+		return result;
+	}
+
+	private static String fingerprint(FormatterStep step) {
+		MessageDigest digest = ThrowingEx.get(() -> MessageDigest.getInstance("SHA-256"));
+		digest.update(step.getClass().getName().getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		digest.update(step.getName().getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		if (step instanceof FormatterStepEqualityOnStateSerialization<?> stateStep) {
+			// the function matters as much as the state, e.g. custom(name, FormatterFunc) has a constant state
+			byte[] function = stateStep.serializedStateToFormatter();
+			digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(function.length).array());
+			digest.update(function);
+			// reuses the bytes which equals() and hashCode() of the step have cached anyway
+			digest.update(stateStep.serializedState());
+		} else {
+			digest.update(LazyForwardingEquality.toBytes((Serializable) step));
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) {
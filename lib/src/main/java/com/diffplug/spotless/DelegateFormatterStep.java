@@ -1,5 +1,5 @@
 /*
- * Copyright 2022-2024 DiffPlug
+ * Copyright 2022-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,6 +30,16 @@ abstract class DelegateFormatterStep implements FormatterStep {
 		return delegateStep.getName();
 	}
 
+	@Override
+	public void startInBackground() {
+		delegateStep.startInBackground();
+	}
+
+	@Override
+	public void shareFormatterFuncs(FormatterFuncRegistry registry) {
+		delegateStep.shareFormatterFuncs(registry);
+	}
+
 	@Override
 	public void close() throws Exception {
 		delegateStep.close();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2022-2025 DiffPlug
+ * Copyright 2022-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -95,9 +95,13 @@ public class DirtyState {
 		// enforce the format
 		String formattedUnix = formatter.computeWithLint(rawUnix, file, exceptionPerStep);
 		// convert the line endings if necessary
-		String formatted = formatter.computeLineEndings(formattedUnix, file);
+		String formatted = formatter.computeLineEndings(formattedUnix, file, rawBytes, raw);
 
 		// if F(input) == input, then the formatter is well-behaving and the input is clean
+		if (formatted == raw) {
+			// every step and the line endings returned their input as is, so there is nothing to encode and compare
+			return IS_CLEAN;
+		}
 		byte[] formattedBytes = formatted.getBytes(formatter.getEncoding());
 		if (Arrays.equals(rawBytes, formattedBytes)) {
 			return IS_CLEAN;
@@ -117,7 +121,7 @@ public class DirtyState {
 
 		// get the canonical bytes
 		String canonicalUnix = cell.canonical();
-		String canonical = formatter.computeLineEndings(canonicalUnix, file);
+		String canonical = formatter.computeLineEndings(canonicalUnix, file, rawBytes, raw);
 		byte[] canonicalBytes = canonical.getBytes(formatter.getEncoding());
 		if (!Arrays.equals(rawBytes, canonicalBytes)) {
 			// and write them to disk if needed
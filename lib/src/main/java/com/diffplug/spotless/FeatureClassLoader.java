@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2023 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,14 +15,28 @@
  */
 package com.diffplug.spotless;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
 import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.jar.Manifest;
+
+import javax.annotation.Nullable;
 
 /**
  * This class loader is used to load classes of Spotless features from a search
@@ -37,13 +51,32 @@ import java.util.Objects;
  * <p>
  *  For `"org.slf4j.` and (`com.diffplug.spotless.` but not `com.diffplug.spotless.extra.`)
  * 	the classes are loaded from the buildToolClassLoader.
+ * <p>
+ * If a class list is given, the classes a previous JVM defined from these jars are loaded on a background
+ * thread as soon as the classloader is created, and the list is updated by {@link #saveClassList()}.
+ * <p>
+ * If all URLs are local jars, classes and resources are looked up through a {@link JarIndex}, so only the jars
+ * which contain the requested package are opened.
  */
 class FeatureClassLoader extends URLClassLoader {
 	static {
 		ClassLoader.registerAsParallelCapable();
 	}
 
+	/** The bytes of glue classes from the build tool classloader, whose jars don't change while the JVM runs. */
+	private static final Map<String, byte[]> GLUE_CLASS_BYTES = new ConcurrentHashMap<>();
+
+	private static final Executor WARM_UP = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "spotless-classloader-warm-up");
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	private final ClassLoader buildToolClassLoader;
+	private final @Nullable JarIndex index;
+	private final @Nullable Path classList;
+	private final Set<String> definedClasses = ConcurrentHashMap.newKeySet();
+	private volatile int savedClassListSize;
 
 	/**
 	 * Constructs a new FeatureClassLoader for the given URLs, based on an {@code URLClassLoader},
@@ -55,28 +88,140 @@ class FeatureClassLoader extends URLClassLoader {
 	 * @exception  NullPointerException if {@code urls} is {@code null}.
 	 */
 	FeatureClassLoader(URL[] urls, ClassLoader buildToolClassLoader) {
+		this(urls, buildToolClassLoader, null);
+	}
+
+	/**
+	 * Same as {@link #FeatureClassLoader(URL[], ClassLoader)}, but warms up from and records into the given class list.
+	 *
+	 * @param classList file with the names of the classes to load ahead of time, one per line, need not exist yet
+	 */
+	FeatureClassLoader(URL[] urls, ClassLoader buildToolClassLoader, @Nullable Path classList) {
 		super(urls, getParentClassLoader());
 		Objects.requireNonNull(buildToolClassLoader);
 		this.buildToolClassLoader = buildToolClassLoader;
+		this.index = JarIndex.create(urls);
+		this.classList = classList;
+		if (classList != null && Files.isRegularFile(classList)) {
+			warmUp(classList);
+		}
 	}
 
 	@Override
 	protected Class<?> findClass(String name) throws ClassNotFoundException {
 		if (name.startsWith("com.diffplug.spotless.glue.") || name.startsWith("com.diffplug.spotless.extra.glue.")) {
-			String path = name.replace('.', '/') + ".class";
-			URL url = findResource(path);
+			byte[] bytes = glueClassBytes(name);
+			Class<?> clazz = defineClass(name, bytes, 0, bytes.length, (ProtectionDomain) null);
+			recordDefined(name);
+			return clazz;
+		} else if (useBuildToolClassLoader(name)) {
+			return buildToolClassLoader.loadClass(name);
+		} else {
+			Class<?> clazz = index == null ? super.findClass(name) : findIndexedClass(index, name);
+			recordDefined(name);
+			return clazz;
+		}
+	}
+
+	private Class<?> findIndexedClass(JarIndex index, String name) throws ClassNotFoundException {
+		try {
+			JarIndex.Entry entry = index.find(name.replace('.', '/') + ".class");
+			if (entry == null) {
+				throw new ClassNotFoundException(name);
+			}
+			byte[] bytes = entry.readAllBytes();
+			int lastDot = name.lastIndexOf('.');
+			if (lastDot != -1) {
+				definePackageIfAbsent(name.substring(0, lastDot), entry);
+			}
+			CodeSource codeSource = new CodeSource(entry.jarUrl(), entry.codeSigners());
+			return defineClass(name, bytes, 0, bytes.length, codeSource);
+		} catch (IOException | IllegalStateException e) {
+			// IllegalStateException if the jar has been closed along with this classloader
+			throw new ClassNotFoundException(name, e);
+		}
+	}
+
+	private void definePackageIfAbsent(String packageName, JarIndex.Entry entry) throws IOException {
+		if (getDefinedPackage(packageName) != null) {
+			return;
+		}
+		try {
+			Manifest manifest = entry.jar().getManifest();
+			if (manifest != null) {
+				definePackage(packageName, manifest, entry.jarUrl());
+			} else {
+				definePackage(packageName, null, null, null, null, null, null, null);
+			}
+		} catch (IllegalArgumentException e) {
+			// another thread defined it concurrently
+		}
+	}
+
+	private byte[] glueClassBytes(String name) throws ClassNotFoundException {
+		String path = name.replace('.', '/') + ".class";
+		try {
+			if (index != null) {
+				JarIndex.Entry entry = index.find(path);
+				if (entry != null) {
+					return entry.readAllBytes();
+				}
+			} else {
+				URL url = super.findResource(path);
+				if (url != null) {
+					return readAllBytes(url);
+				}
+			}
+			URL url = buildToolClassLoader.getResource(path);
 			if (url == null) {
 				throw new ClassNotFoundException(name);
 			}
-			try {
-				return defineClass(name, urlToByteBuffer(url), (ProtectionDomain) null);
-			} catch (IOException e) {
-				throw new ClassNotFoundException(name, e);
+			byte[] bytes = GLUE_CLASS_BYTES.get(url.toExternalForm());
+			if (bytes == null) {
+				bytes = readAllBytes(url);
+				GLUE_CLASS_BYTES.put(url.toExternalForm(), bytes);
 			}
-		} else if (useBuildToolClassLoader(name)) {
-			return buildToolClassLoader.loadClass(name);
-		} else {
-			return super.findClass(name);
+			return bytes;
+		} catch (IOException e) {
+			throw new ClassNotFoundException(name, e);
+		}
+	}
+
+	private void recordDefined(String name) {
+		if (classList != null) {
+			definedClasses.add(name);
+		}
+	}
+
+	private void warmUp(Path classList) {
+		List<String> names;
+		try {
+			names = Files.readAllLines(classList, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			// a broken class list only costs the warm-up
+			return;
+		}
+		savedClassListSize = names.size();
+		WARM_UP.execute(() -> {
+			for (String name : names) {
+				try {
+					Class.forName(name, false, this);
+				} catch (ClassNotFoundException | LinkageError e) {
+					// the class list is only a hint, the formatter will report real problems itself
+				}
+			}
+		});
+	}
+
+	/** Writes the names of all classes defined so far into the class list, if there are more than it already has. */
+	void saveClassList() {
+		if (classList == null || definedClasses.size() <= savedClassListSize) {
+			return;
+		}
+		List<String> names = new ArrayList<>(definedClasses);
+		// the class list is only an optimization
+		if (AtomicFiles.writeBestEffort(classList, temp -> Files.write(temp, names, StandardCharsets.UTF_8))) {
+			savedClassListSize = names.size();
 		}
 	}
 
@@ -92,20 +237,52 @@ class FeatureClassLoader extends URLClassLoader {
 
 	@Override
 	public URL findResource(String name) {
-		URL resource = super.findResource(name);
+		URL resource = findJarResource(name);
 		if (resource != null) {
 			return resource;
 		}
 		return buildToolClassLoader.getResource(name);
 	}
 
-	private static ByteBuffer urlToByteBuffer(URL url) throws IOException {
-		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	private @Nullable URL findJarResource(String name) {
+		if (index == null) {
+			return super.findResource(name);
+		}
+		try {
+			JarIndex.Entry entry = index.find(name);
+			return entry == null ? null : entry.url();
+		} catch (IOException | RuntimeException e) {
+			return super.findResource(name);
+		}
+	}
+
+	@Override
+	public Enumeration<URL> findResources(String name) throws IOException {
+		if (index == null) {
+			return super.findResources(name);
+		}
+		List<URL> resources = new ArrayList<>();
+		for (JarIndex.Entry entry : index.findAll(name)) {
+			resources.add(entry.url());
+		}
+		return Collections.enumeration(resources);
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			super.close();
+		} finally {
+			if (index != null) {
+				index.close();
+			}
+		}
+	}
+
+	private static byte[] readAllBytes(URL url) throws IOException {
 		try (InputStream inputStream = url.openStream()) {
-			inputStream.transferTo(buffer);
+			return inputStream.readAllBytes();
 		}
-		buffer.flush();
-		return ByteBuffer.wrap(buffer.toByteArray());
 	}
 
 	private static ClassLoader getParentClassLoader() {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2025 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,19 +20,24 @@ import static com.diffplug.spotless.MoreIterables.toSortedSet;
 import static java.util.Comparator.comparing;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.Serial;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import edu.umd.cs.findbugs.annotations.Nullable;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -89,12 +94,23 @@ public final class FileSignature implements Serializable {
 
 	private FileSignature(final List<File> files) throws IOException {
 		this.files = validateInputFiles(files);
-		this.signatures = new Sig[this.files.size()];
-
-		int i = 0;
-		for (File file : this.files) {
-			signatures[i] = CACHE.sign(file);
-			++i;
+		if (this.files.size() <= 1) {
+			this.signatures = new Sig[this.files.size()];
+			for (int i = 0; i < signatures.length; ++i) {
+				signatures[i] = CACHE.sign(this.files.get(i));
+			}
+		} else {
+			// jars of a single formatter (e.g. an Eclipse P2 classpath) can add up to hundreds of MB
+			try {
+				this.signatures = this.files.parallelStream()
+						.map(file -> ThrowingEx.get(() -> CACHE.sign(file)))
+						.toArray(Sig[]::new);
+			} catch (ThrowingEx.WrappedAsRuntimeException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				throw e;
+			}
 		}
 	}
 
@@ -177,52 +193,153 @@ public final class FileSignature implements Serializable {
 	/**
 	 * It is very common for a given set of files to be "signed" many times.  For example,
 	 * the jars which constitute any given formatter live in a central cache, but will be signed
-	 * over and over.  To save this I/O, we maintain a cache, invalidated by lastModified time.
+	 * over and over.  To save this I/O, we maintain a cache, invalidated by lastModified time and size.
 	 */
 	static final Cache CACHE = new Cache();
 
-	private static final class Cache {
-		Map<String, Sig> cache = new HashMap<>();
+	/**
+	 * Persists the digests of signed files into the given directory, so that a fresh JVM
+	 * (e.g. a new Gradle daemon) doesn't have to rehash every jar it has already seen.
+	 * Entries are keyed by canonical path and invalidated by size and lastModified time.
+	 * The first call wins, later calls are ignored. The system property
+	 * {@code spotless.fileSignature.cacheDir} takes precedence over this method.
+	 */
+	public static void persistDigestsIn(File cacheDir) {
+		CACHE.persistIn(cacheDir.toPath());
+	}
+
+	static final class Cache {
+		private static final int BUFFER_SIZE = 256 * 1024;
 
-		synchronized Sig sign(File fileInput) throws IOException {
+		final Map<String, Sig> cache = new ConcurrentHashMap<>();
+		private volatile @Nullable Path persistentDir;
+
+		Cache() {
+			String dir = System.getProperty("spotless.fileSignature.cacheDir");
+			if (dir != null && !dir.isEmpty()) {
+				persistentDir = Path.of(dir);
+			}
+		}
+
+		synchronized void persistIn(Path dir) {
+			if (persistentDir == null) {
+				persistentDir = dir;
+			}
+		}
+
+		Sig sign(File fileInput) throws IOException {
 			String canonicalPath = fileInput.getCanonicalPath();
-			Sig sig = cache.computeIfAbsent(canonicalPath, ThrowingEx.<String, Sig> wrap(p -> {
-				MessageDigest digest = MessageDigest.getInstance("SHA-256");
-				File file = new File(p);
-				// calculate the size and content hash of the file
-				long size = 0;
-				byte[] buf = new byte[1024];
-				long lastModified;
-				try (InputStream input = new FileInputStream(file)) {
-					lastModified = file.lastModified();
-					int numRead;
-					while ((numRead = input.read(buf)) != -1) {
-						size += numRead;
-						digest.update(buf, 0, numRead);
-					}
-				}
-				return new Sig(file.getName(), size, digest.digest(), lastModified);
-			}));
-			long lastModified = fileInput.lastModified();
-			if (sig.lastModified != lastModified) {
-				cache.remove(canonicalPath);
-				return sign(fileInput);
-			} else {
+			File file = new File(canonicalPath);
+			long lastModified = file.lastModified();
+			long length = file.length();
+			Sig sig = cache.get(canonicalPath);
+			if (sig != null && sig.lastModified == lastModified && sig.size == length) {
 				return sig;
 			}
+			sig = readPersisted(canonicalPath, file.getName(), length, lastModified);
+			if (sig == null) {
+				// two threads may hash the same file concurrently, which is harmless
+				sig = hash(file);
+				writePersisted(canonicalPath, sig);
+			}
+			cache.put(canonicalPath, sig);
+			return sig;
+		}
+
+		private static Sig hash(File file) throws IOException {
+			MessageDigest digest = ThrowingEx.get(() -> MessageDigest.getInstance("SHA-256"));
+			// a heap buffer lets MessageDigest consume the bytes in place, direct and mapped
+			// buffers would be copied into a small temporary array on every update
+			ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+			long size = 0;
+			long lastModified;
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				lastModified = file.lastModified();
+				while (channel.read(buf) != -1) {
+					buf.flip();
+					size += buf.remaining();
+					digest.update(buf);
+					buf.clear();
+				}
+			}
+			return new Sig(file.getName(), size, digest.digest(), lastModified);
+		}
+
+		private @Nullable Path persistedEntry(String canonicalPath, String suffix) {
+			Path dir = persistentDir;
+			if (dir == null) {
+				return null;
+			}
+			MessageDigest digest = ThrowingEx.get(() -> MessageDigest.getInstance("SHA-256"));
+			String key = HexFormat.of().formatHex(digest.digest(canonicalPath.getBytes(StandardCharsets.UTF_8)));
+			return dir.resolve(key.substring(0, 2)).resolve(key + suffix);
+		}
+
+		/** Returns the persisted signature, or null if there is none or it is stale. */
+		private @Nullable Sig readPersisted(String canonicalPath, String name, long size, long lastModified) {
+			List<String> payload = readPersistedLines(canonicalPath, "", size, lastModified);
+			if (payload == null || payload.size() != 1) {
+				return null;
+			}
+			try {
+				return new Sig(name, size, HexFormat.of().parseHex(payload.get(0)), lastModified);
+			} catch (IllegalArgumentException e) {
+				// a corrupt entry is simply recomputed and overwritten
+				return null;
+			}
+		}
+
+		private void writePersisted(String canonicalPath, Sig sig) {
+			writePersistedLines(canonicalPath, "", sig.size, sig.lastModified, List.of(HexFormat.of().formatHex(sig.hash)));
+		}
+
+		/**
+		 * Returns the lines persisted for the given file and suffix, or null if there are none or the file
+		 * has changed size or lastModified since.
+		 */
+		@Nullable List<String> readPersistedLines(String canonicalPath, String suffix, long size, long lastModified) {
+			Path entry = persistedEntry(canonicalPath, suffix);
+			if (entry == null || !Files.isRegularFile(entry)) {
+				return null;
+			}
+			try {
+				List<String> lines = Files.readAllLines(entry, StandardCharsets.UTF_8);
+				if (lines.size() >= 3
+						&& lines.get(0).equals(canonicalPath)
+						&& Long.parseLong(lines.get(1)) == size
+						&& Long.parseLong(lines.get(2)) == lastModified) {
+					return lines.subList(3, lines.size());
+				}
+			} catch (IOException | IllegalArgumentException e) {
+				// a corrupt entry is simply recomputed and overwritten
+			}
+			return null;
+		}
+
+		/** Persists lines for the given file and suffix, if a persistent directory has been set. */
+		void writePersistedLines(String canonicalPath, String suffix, long size, long lastModified, List<String> payload) {
+			Path entry = persistedEntry(canonicalPath, suffix);
+			if (entry == null) {
+				return;
+			}
+			StringBuilder content = new StringBuilder();
+			content.append(canonicalPath).append('\n').append(size).append('\n').append(lastModified).append('\n');
+			for (String line : payload) {
+				content.append(line).append('\n');
+			}
+			// the persistent cache is only an optimization, the in-memory value is still valid
+			AtomicFiles.writeBestEffort(entry, temp -> Files.writeString(temp, content, StandardCharsets.UTF_8));
 		}
 	}
 
 	@SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
-	private static final class Sig implements Serializable {
+	static final class Sig implements Serializable {
 		@Serial
 		private static final long serialVersionUID = 6727302747168655222L;
 
 		@SuppressWarnings("unused")
 		final String name;
-		@SuppressWarnings("unused")
 		final long size;
-		@SuppressWarnings("unused")
 		final byte[] hash;
 		/** transient because state should be transferable from machine to machine. */
 		final transient long lastModified;
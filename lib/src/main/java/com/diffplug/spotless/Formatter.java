@@ -114,12 +114,50 @@ public final class Formatter implements Serializable, AutoCloseable {
 		}
 	}
 
+	/** Lets every step which is slow to start begin starting in the background, see {@link FormatterStep#startInBackground()}. */
+	public void startStepsInBackground() {
+		for (FormatterStep step : steps) {
+			step.startInBackground();
+		}
+	}
+
+	/** Lets every step reuse equal steps' formatter functions through the given registry, see {@link FormatterStep#shareFormatterFuncs(FormatterFuncRegistry)}. */
+	public void shareFormatterFuncs(FormatterFuncRegistry registry) {
+		for (FormatterStep step : steps) {
+			step.shareFormatterFuncs(registry);
+		}
+	}
+
 	/** Applies the appropriate line endings to the given unix content. */
 	public String computeLineEndings(String unix, File file) {
 		Objects.requireNonNull(unix, "unix");
 		Objects.requireNonNull(file, "file");
 
-		String ending = lineEndingsPolicy.getEndingFor(file);
+		return applyLineEnding(unix, lineEndingsPolicy.getEndingFor(file));
+	}
+
+	/** Applies the appropriate line endings to the given unix content, for a file whose current content is {@code raw}. */
+	public String computeLineEndings(String unix, File file, byte[] raw) {
+		Objects.requireNonNull(unix, "unix");
+		Objects.requireNonNull(file, "file");
+		Objects.requireNonNull(raw, "raw");
+
+		return applyLineEnding(unix, lineEndingsPolicy.getEndingFor(file, raw));
+	}
+
+	/**
+	 * Same as {@link #computeLineEndings(String, File, byte[])}, but returns {@code raw}, the current content decoded,
+	 * instead of a copy when the result is equal to it.
+	 */
+	String computeLineEndings(String unix, File file, byte[] rawBytes, String raw) {
+		String ending = lineEndingsPolicy.getEndingFor(file, rawBytes);
+		if (LineEnding.equalsWithEnding(raw, unix, ending)) {
+			return raw;
+		}
+		return applyLineEnding(unix, ending);
+	}
+
+	private static String applyLineEnding(String unix, String ending) {
 		if (!ending.equals(LineEnding.UNIX.str())) {
 			return unix.replace(LineEnding.UNIX.str(), ending);
 		} else {
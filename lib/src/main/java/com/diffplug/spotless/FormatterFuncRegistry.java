@@ -0,0 +1,148 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the {@link FormatterFunc}s of steps open after their {@link Formatter} is closed, so that an identical step
+ * (same name, function and equality state, e.g. the same java config in another project) reuses the warm function
+ * instead of creating its own. Install it with {@link Formatter#shareFormatterFuncs(FormatterFuncRegistry)}.
+ * <p>
+ * A function is leased to one step at a time, since formatter functions aren't required to be thread-safe;
+ * steps in use at the same time get separate functions, which all become available for reuse once released. A function
+ * which threw is closed on release rather than reused, since it may have been left in a broken state.
+ * Closing the registry closes every released function, and the ones still leased as soon as they are released.
+ * While the registry holds any function, it keeps the {@link SpotlessCache} {@link SpotlessCache#markInUse() in use},
+ * so their classloaders aren't closed underneath them.
+ */
+public final class FormatterFuncRegistry implements AutoCloseable {
+	private final Map<Key, Deque<FormatterFunc>> released = new HashMap<>();
+	private int leased;
+	private boolean closed;
+	private @Nullable SpotlessCache.InUse cacheInUse;
+
+	/**
+	 * Returns a released function with the given key, or creates one, leasing it until {@link #release}. The key
+	 * must identify everything the function depends on, see {@link FormatterStepEqualityOnStateSerialization}.
+	 */
+	FormatterFunc acquire(byte[] stepKey, ThrowingEx.Supplier<FormatterFunc> create) throws Exception {
+		Key key = new Key(stepKey);
+		synchronized (this) {
+			if (cacheInUse == null) {
+				cacheInUse = SpotlessCache.markInUse();
+			}
+			++leased;
+			Deque<FormatterFunc> funcs = released.get(key);
+			FormatterFunc func = funcs == null ? null : funcs.pollFirst();
+			if (func != null) {
+				return func;
+			}
+		}
+		// created outside the lock, so that unrelated steps start in parallel
+		try {
+			return create.get();
+		} catch (Exception | Error e) {
+			release(key, null, false);
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns a function obtained from {@link #acquire} for reuse, or closes it if the registry is closed or if the
+	 * function failed while it was leased.
+	 */
+	void release(byte[] stepKey, FormatterFunc func, boolean failed) {
+		release(new Key(stepKey), func, !failed);
+	}
+
+	private void release(Key key, @Nullable FormatterFunc func, boolean reusable) {
+		SpotlessCache.InUse noLongerInUse = null;
+		synchronized (this) {
+			--leased;
+			if (!closed && func != null && reusable) {
+				released.computeIfAbsent(key, unused -> new ArrayDeque<>()).addFirst(func);
+				return;
+			}
+			if (closed && leased == 0) {
+				noLongerInUse = cacheInUse;
+				cacheInUse = null;
+			}
+		}
+		if (func instanceof FormatterFunc.Closeable closeable) {
+			closeable.close();
+		}
+		if (noLongerInUse != null) {
+			noLongerInUse.close();
+		}
+	}
+
+	/** Number of functions available for reuse. */
+	synchronized int releasedCount() {
+		return released.values().stream().mapToInt(Deque::size).sum();
+	}
+
+	@Override
+	public void close() {
+		List<FormatterFunc> toClose = new ArrayList<>();
+		SpotlessCache.InUse noLongerInUse = null;
+		synchronized (this) {
+			closed = true;
+			released.values().forEach(toClose::addAll);
+			released.clear();
+			if (leased == 0) {
+				noLongerInUse = cacheInUse;
+				cacheInUse = null;
+			}
+		}
+		for (FormatterFunc func : toClose) {
+			if (func instanceof FormatterFunc.Closeable closeable) {
+				closeable.close();
+			}
+		}
+		if (noLongerInUse != null) {
+			noLongerInUse.close();
+		}
+	}
+
+	private static final class Key {
+		private final byte[] stepKey;
+		private final int hashCode;
+
+		Key(byte[] stepKey) {
+			this.stepKey = stepKey;
+			this.hashCode = Arrays.hashCode(stepKey);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Key key && hashCode == key.hashCode && Arrays.equals(stepKey, key.stepKey);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+}
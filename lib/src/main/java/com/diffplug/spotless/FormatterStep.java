@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2025 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -63,6 +63,24 @@ public interface FormatterStep extends Serializable, AutoCloseable {
 		return List.of();
 	}
 
+	/**
+	 * Hints that this step is about to be used. A step whose state is {@link SlowToStart} takes the hint to create
+	 * its formatter function (e.g. launch a node server) on a background thread, so that the startup overlaps with
+	 * other work. Closing the step before it is used doesn't wait for the startup to finish, the function is closed
+	 * once it has been created. Does nothing by default.
+	 */
+	default void startInBackground() {}
+
+	/** Marker for step states whose {@link FormatterFunc} is slow to create, see {@link #startInBackground()}. */
+	interface SlowToStart {}
+
+	/**
+	 * Lets this step lease its formatter function from the given registry, and give it back there when closed,
+	 * instead of creating and closing a function of its own. Must be called before the step is used. Does nothing
+	 * by default.
+	 */
+	default void shareFormatterFuncs(FormatterFuncRegistry registry) {}
+
 	/**
 	 * Returns a new {@code FormatterStep} which, observing the value of {@code formatIfMatches},
 	 * will only apply, or not, its changes to files which pass the given filter.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2025 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,11 +15,20 @@
  */
 package com.diffplug.spotless;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import javax.annotation.Nullable;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
@@ -39,24 +48,119 @@ abstract class FormatterStepEqualityOnStateSerialization<State extends Serializa
 
 	protected abstract FormatterFunc stateToFormatter(State state) throws Exception;
 
+	private static final Executor BACKGROUND_STARTER = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "spotless-formatter-start");
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	private transient FormatterFunc formatter;
+	private transient boolean formatterFailed;
+	private transient @Nullable FormatterFuncRegistry registry;
+	private transient byte[] registryKey;
+	private transient CompletableFuture<FormatterFunc> pendingFormatter;
 	private transient State stateInternal;
 	private transient byte[] serializedStateInternal;
+	private transient int serializedStateHashCode;
 
 	@Override
 	public String format(String rawUnix, File file) throws Exception {
-		if (formatter == null) {
-			formatter = stateToFormatter(state());
+		FormatterFunc formatter = formatter();
+		try {
+			return formatter.apply(rawUnix, file);
+		} catch (Exception | Error e) {
+			formatterFailed = true;
+			throw e;
 		}
-		return formatter.apply(rawUnix, file);
 	}
 
 	@Override
 	public List<Lint> lint(String content, File file) throws Exception {
+		FormatterFunc formatter = formatter();
+		try {
+			return formatter.lint(content, file);
+		} catch (Exception | Error e) {
+			formatterFailed = true;
+			throw e;
+		}
+	}
+
+	@Override
+	public void startInBackground() {
+		if (formatter != null || pendingFormatter != null) {
+			return;
+		}
+		State state;
+		try {
+			state = state();
+		} catch (Exception e) {
+			return; // will be thrown again when the step is used
+		}
+		if (state instanceof SlowToStart) {
+			pendingFormatter = CompletableFuture.supplyAsync(() -> ThrowingEx.get(() -> createFormatter(state)), BACKGROUND_STARTER);
+		}
+	}
+
+	@Override
+	public void shareFormatterFuncs(FormatterFuncRegistry registry) {
+		if (formatter == null && pendingFormatter == null) {
+			try {
+				// computed up front rather than racing with a background start
+				registryKey = registryKey();
+			} catch (RuntimeException e) {
+				return; // will be thrown again when the step is used
+			}
+			this.registry = registry;
+		}
+	}
+
+	private FormatterFunc createFormatter(State state) throws Exception {
+		FormatterFuncRegistry registry = this.registry;
+		if (registry == null) {
+			return stateToFormatter(state);
+		}
+		return registry.acquire(registryKey, () -> stateToFormatter(state));
+	}
+
+	/**
+	 * Identifies the formatter function of this step for a {@link FormatterFuncRegistry}: unlike {@link #equals},
+	 * it also tells apart steps which happen to have the same state but a different name or function.
+	 */
+	private byte[] registryKey() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			output.writeUTF(getClass().getName());
+			output.writeUTF(getName());
+			byte[] function = serializedStateToFormatter();
+			output.writeInt(function.length);
+			output.write(function);
+			output.write(serializedState());
+		} catch (IOException e) {
+			throw ThrowingEx.asRuntime(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/** The serialized function which {@link #stateToFormatter} applies, if it is not fully determined by the step class. */
+	byte[] serializedStateToFormatter() {
+		return new byte[0];
+	}
+
+	private FormatterFunc formatter() throws Exception {
 		if (formatter == null) {
-			formatter = stateToFormatter(state());
+			if (pendingFormatter != null) {
+				CompletableFuture<FormatterFunc> pending = pendingFormatter;
+				pendingFormatter = null;
+				try {
+					formatter = pending.get();
+				} catch (ExecutionException e) {
+					throw ThrowingEx.unwrapCause(e);
+				}
+			} else {
+				formatter = createFormatter(state());
+			}
 		}
-		return formatter.lint(content, file);
+		return formatter;
 	}
 
 	@Override
@@ -66,20 +170,41 @@ abstract class FormatterStepEqualityOnStateSerialization<State extends Serializa
 		} else if (getClass() != o.getClass()) {
 			return false;
 		} else {
-			return Arrays.equals(serializedState(), ((FormatterStepEqualityOnStateSerialization<?>) o).serializedState());
+			FormatterStepEqualityOnStateSerialization<?> other = (FormatterStepEqualityOnStateSerialization<?>) o;
+			return hashCode() == other.hashCode() && Arrays.equals(serializedState(), other.serializedState());
 		}
 	}
 
 	@Override
 	public int hashCode() {
-		return Arrays.hashCode(serializedState());
+		if (serializedStateHashCode == 0) {
+			serializedStateHashCode = Arrays.hashCode(serializedState());
+		}
+		return serializedStateHashCode;
 	}
 
 	@Override
 	public void close() {
-		if (formatter instanceof FormatterFunc.Closeable closeable) {
-			closeable.close();
+		if (pendingFormatter != null) {
+			// the step was started in the background but never used, it is released once started rather than waited for
+			CompletableFuture<FormatterFunc> pending = pendingFormatter;
+			pendingFormatter = null;
+			FormatterFuncRegistry registry = this.registry;
+			byte[] registryKey = this.registryKey;
+			pending.thenAccept(started -> release(registry, registryKey, started, false));
+		}
+		if (formatter != null) {
+			release(registry, registryKey, formatter, formatterFailed);
 			formatter = null;
+			formatterFailed = false;
+		}
+	}
+
+	private static void release(@Nullable FormatterFuncRegistry registry, byte[] registryKey, FormatterFunc formatter, boolean failed) {
+		if (registry != null) {
+			registry.release(registryKey, formatter, failed);
+		} else if (formatter instanceof FormatterFunc.Closeable closeable) {
+			closeable.close();
 		}
 	}
 
@@ -90,7 +215,8 @@ abstract class FormatterStepEqualityOnStateSerialization<State extends Serializa
 		return stateInternal;
 	}
 
-	private byte[] serializedState() {
+	/** The serialized equality state, computed once. */
+	byte[] serializedState() {
 		if (serializedStateInternal == null) {
 			serializedStateInternal = ThrowingEx.get(() -> LazyForwardingEquality.toBytes(state()));
 		}
@@ -67,6 +67,11 @@ final class FormatterStepSerializationRoundtrip<RoundtripState extends Serializa
 		return equalityStateToFormatter.apply(equalityState);
 	}
 
+	@Override
+	byte[] serializedStateToFormatter() {
+		return ThrowingEx.get(() -> LazyForwardingEquality.toBytes(equalityStateToFormatter));
+	}
+
 	private void writeObject(ObjectOutputStream out) throws IOException {
 		if (initializer == null) {
 			// then this instance was created by Gradle's ConfigurationCacheHackList and the following will hold true
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSigner;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.ZipFile;
+
+import javax.annotation.Nullable;
+
+/**
+ * Maps every package directory (e.g. {@code org/eclipse/jdt/core}) of a classpath to the jars which contain it,
+ * so that {@link FeatureClassLoader} only looks into the jars which can hold a class or resource, instead of
+ * probing every jar in order. The packages of each jar are persisted next to its {@link FileSignature} digest, and
+ * the jars themselves are only opened once a lookup needs them.
+ */
+final class JarIndex implements AutoCloseable {
+	private static final String PACKAGES_SUFFIX = ".packages";
+	private static final int[] NO_JARS = new int[0];
+
+	/** Packages per jar, keyed by canonical path, for jars which are shared between classloaders. */
+	private static final Map<String, JarPackages> PACKAGES = new ConcurrentHashMap<>();
+
+	private record JarPackages(long size, long lastModified, List<String> packages) {}
+
+	/** A resource found in one of the jars. */
+	record Entry(URL jarUrl, JarFile jar, JarEntry entry) {
+		byte[] readAllBytes() throws IOException {
+			try (InputStream input = jar.getInputStream(entry)) {
+				return input.readAllBytes();
+			}
+		}
+
+		/** Only valid once the entry has been read completely. */
+		@Nullable CodeSigner[] codeSigners() {
+			return entry.getCodeSigners();
+		}
+
+		URL url() throws MalformedURLException {
+			String path = ThrowingEx.get(() -> new URI(null, null, entry.getName(), null).getRawPath());
+			return new URL("jar:" + jarUrl.toExternalForm() + "!/" + path);
+		}
+	}
+
+	private final URL[] urls;
+	private final File[] files;
+	/** Opened on the first lookup which needs them, so that an unused classloader holds no file handles. */
+	private final AtomicReferenceArray<JarFile> jars;
+	private final Map<String, int[]> jarsByPackage;
+	private volatile boolean closed;
+
+	private JarIndex(URL[] urls, File[] files, Map<String, int[]> jarsByPackage) {
+		this.urls = urls;
+		this.files = files;
+		this.jars = new AtomicReferenceArray<>(files.length);
+		this.jarsByPackage = jarsByPackage;
+	}
+
+	/** Returns the index of the given classpath, or null if it contains anything but local jar files. */
+	static @Nullable JarIndex create(URL[] urls) {
+		for (URL url : urls) {
+			if (!"file".equals(url.getProtocol()) || !url.getPath().endsWith(".jar")) {
+				return null;
+			}
+		}
+		File[] files = new File[urls.length];
+		Map<String, List<Integer>> jarLists = new HashMap<>();
+		try {
+			for (int i = 0; i < urls.length; ++i) {
+				files[i] = new File(urls[i].toURI());
+				for (String pkg : packagesOf(files[i])) {
+					jarLists.computeIfAbsent(pkg, unused -> new ArrayList<>(1)).add(i);
+				}
+			}
+		} catch (IOException | URISyntaxException | IllegalArgumentException e) {
+			// can't index this classpath, the classloader falls back to probing every jar
+			return null;
+		}
+		Map<String, int[]> jarsByPackage = new HashMap<>(jarLists.size() * 4 / 3 + 1);
+		jarLists.forEach((pkg, list) -> jarsByPackage.put(pkg, list.stream().mapToInt(Integer::intValue).toArray()));
+		return new JarIndex(urls, files, jarsByPackage);
+	}
+
+	private static JarFile open(File file) throws IOException {
+		return new JarFile(file, true, ZipFile.OPEN_READ, JarFile.runtimeVersion());
+	}
+
+	private JarFile jar(int i) throws IOException {
+		JarFile jar = jars.get(i);
+		if (jar == null) {
+			synchronized (this) {
+				if (closed) {
+					throw new IllegalStateException("zip file closed");
+				}
+				jar = jars.get(i);
+				if (jar == null) {
+					jar = open(files[i]);
+					jars.set(i, jar);
+				}
+			}
+		}
+		return jar;
+	}
+
+	private static List<String> packagesOf(File file) throws IOException {
+		String canonicalPath = file.getCanonicalPath();
+		long size = file.length();
+		long lastModified = file.lastModified();
+		JarPackages cached = PACKAGES.get(canonicalPath);
+		if (cached != null && cached.size == size && cached.lastModified == lastModified) {
+			return cached.packages;
+		}
+		List<String> packages = FileSignature.CACHE.readPersistedLines(canonicalPath, PACKAGES_SUFFIX, size, lastModified);
+		if (packages == null) {
+			TreeSet<String> set = new TreeSet<>();
+			// only opened to be indexed, lookups open it again if they need it
+			try (JarFile jar = open(file)) {
+				jar.versionedStream().forEach(entry -> set.add(packageOf(entry.getName())));
+			}
+			packages = List.copyOf(set);
+			FileSignature.CACHE.writePersistedLines(canonicalPath, PACKAGES_SUFFIX, size, lastModified, packages);
+		}
+		PACKAGES.put(canonicalPath, new JarPackages(size, lastModified, packages));
+		return packages;
+	}
+
+	private static String packageOf(String resourceName) {
+		int lastSlash = resourceName.lastIndexOf('/', resourceName.length() - 2);
+		return lastSlash == -1 ? "" : resourceName.substring(0, lastSlash);
+	}
+
+	/** Returns the first jar entry with the given name, in classpath order. */
+	@Nullable Entry find(String resourceName) throws IOException {
+		for (int i : jarsByPackage.getOrDefault(packageOf(resourceName), NO_JARS)) {
+			JarFile jar = jar(i);
+			JarEntry entry = jar.getJarEntry(resourceName);
+			if (entry != null) {
+				return new Entry(urls[i], jar, entry);
+			}
+		}
+		return null;
+	}
+
+	/** Returns all jar entries with the given name, in classpath order. */
+	List<Entry> findAll(String resourceName) throws IOException {
+		int[] candidates = jarsByPackage.getOrDefault(packageOf(resourceName), NO_JARS);
+		if (candidates.length == 0) {
+			return Collections.emptyList();
+		}
+		List<Entry> found = new ArrayList<>(candidates.length);
+		for (int i : candidates) {
+			JarFile jar = jar(i);
+			JarEntry entry = jar.getJarEntry(resourceName);
+			if (entry != null) {
+				found.add(new Entry(urls[i], jar, entry));
+			}
+		}
+		return found;
+	}
+
+	/** Number of jars which lookups have opened so far. */
+	int openedJars() {
+		int opened = 0;
+		for (int i = 0; i < jars.length(); ++i) {
+			if (jars.get(i) != null) {
+				++opened;
+			}
+		}
+		return opened;
+	}
+
+	@Override
+	public void close() {
+		synchronized (this) {
+			closed = true;
+		}
+		for (int i = 0; i < jars.length(); ++i) {
+			JarFile jar = jars.getAndSet(i, null);
+			if (jar != null) {
+				try {
+					jar.close();
+				} catch (IOException e) {
+					// nothing left to do with it
+				}
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2025 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,8 @@ import java.io.ObjectOutputStream;
 import java.io.ObjectStreamException;
 import java.io.Serial;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.Objects;
 
@@ -32,14 +34,25 @@ import javax.annotation.Nullable;
  * Implements equality, hashcode, and serialization entirely in terms
  * of lazily-computed state.  The state's serialized form is used to implement
  * equals() and hashCode(), so you don't have to.
+ * <p>
+ * The state is serialized at most once per instance, the result is kept for all further
+ * calls to equals() and hashCode(). If the system property {@code spotless.equality.digest}
+ * is {@code true}, only a 128-bit digest of the serialized state is kept and compared, which
+ * saves memory and comparison time for large states (e.g. Eclipse preferences and jar signatures).
  */
 public abstract class LazyForwardingEquality<T extends Serializable> implements Serializable, NoLambda {
 	@Serial
 	private static final long serialVersionUID = 1L;
 
+	/** Whether equality is based on a digest of the serialized state, rather than on all of its bytes. */
+	static final boolean EQUALITY_BY_DIGEST = Boolean.getBoolean("spotless.equality.digest");
+
 	/** Lazily initialized - null indicates that the state has not yet been set. */
 	@Nullable private transient volatile T state;
 
+	/** Lazily initialized from the state - null indicates that it has not been serialized yet. */
+	@Nullable private transient volatile EqualityKey equalityKey;
+
 	/**
 	 * This function is guaranteed to be called at most once.
 	 * If the state is never required, then it will never be called at all.
@@ -84,7 +97,18 @@ public abstract class LazyForwardingEquality<T extends Serializable> implements
 
 	@Override
 	public byte[] toBytes() {
-		return toBytes(state());
+		EqualityKey key = equalityKey();
+		return key.bytes != null ? key.bytes.clone() : toBytes(state());
+	}
+
+	private EqualityKey equalityKey() {
+		// racing threads compute equal keys, so no locking needed
+		EqualityKey key = equalityKey;
+		if (key == null) {
+			key = EqualityKey.of(toBytes(state()), EQUALITY_BY_DIGEST);
+			equalityKey = key;
+		}
+		return key;
 	}
 
 	@Override
@@ -93,7 +117,7 @@ public abstract class LazyForwardingEquality<T extends Serializable> implements
 			return false;
 		} else if (getClass().equals(other.getClass())) {
 			LazyForwardingEquality<?> otherCast = (LazyForwardingEquality<?>) other;
-			return Arrays.equals(otherCast.toBytes(), toBytes());
+			return otherCast.equalityKey().equals(equalityKey());
 		} else {
 			return false;
 		}
@@ -101,7 +125,52 @@ public abstract class LazyForwardingEquality<T extends Serializable> implements
 
 	@Override
 	public final int hashCode() {
-		return Arrays.hashCode(toBytes());
+		return equalityKey().hashCode();
+	}
+
+	/** The serialized form of a state, or just its digest, along with its precomputed hashCode. */
+	static final class EqualityKey {
+		/** Null if only the digest is kept. */
+		@Nullable final byte[] bytes;
+		private final long digestHigh;
+		private final long digestLow;
+		private final int hashCode;
+
+		private EqualityKey(@Nullable byte[] bytes, long digestHigh, long digestLow, int hashCode) {
+			this.bytes = bytes;
+			this.digestHigh = digestHigh;
+			this.digestLow = digestLow;
+			this.hashCode = hashCode;
+		}
+
+		static EqualityKey of(byte[] bytes, boolean digestOnly) {
+			int hashCode = Arrays.hashCode(bytes);
+			if (!digestOnly) {
+				return new EqualityKey(bytes, 0, 0, hashCode);
+			}
+			MessageDigest sha256 = ThrowingEx.get(() -> MessageDigest.getInstance("SHA-256"));
+			ByteBuffer digest = ByteBuffer.wrap(sha256.digest(bytes));
+			return new EqualityKey(null, digest.getLong(), digest.getLong(), hashCode);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (!(obj instanceof EqualityKey other) || hashCode != other.hashCode) {
+				return false;
+			} else if (bytes != null && other.bytes != null) {
+				return Arrays.equals(bytes, other.bytes);
+			} else {
+				// all keys of a JVM are created in the same mode, so both are digests
+				return digestHigh == other.digestHigh && digestLow == other.digestLow;
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
 	}
 
 	static byte[] toBytes(Serializable obj) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2025 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -47,6 +47,17 @@ public enum LineEnding {
 			return super.createPolicy();
 		}
 	},
+	/**
+	 * Uses the same line endings as Git, like {@link #GIT_ATTRIBUTES}, but only looks up the line ending of each file
+	 * once it is formatted, so that an incremental run doesn't evaluate {@code .gitattributes} for every file.
+	 */
+	GIT_ATTRIBUTES_LAZY {
+		/** .gitattributes is path-specific, so you must use {@link LineEnding#createPolicy(File, Supplier)}. */
+		@Override @Deprecated
+		public Policy createPolicy() {
+			return super.createPolicy();
+		}
+	},
 	/** {@code \n} on unix systems, {@code \r\n} on windows systems. */
 	PLATFORM_NATIVE,
 	/** {@code \r\n} */
@@ -68,6 +79,8 @@ public enum LineEnding {
 			gitAttributesMethod = "create";
 		} else if (this == GIT_ATTRIBUTES_FAST_ALLSAME) {
 			gitAttributesMethod = "createFastAllSame";
+		} else if (this == GIT_ATTRIBUTES_LAZY) {
+			gitAttributesMethod = "createLazy";
 		} else {
 			return createPolicy();
 		}
@@ -121,6 +134,20 @@ public enum LineEnding {
             }
         }
 
+        @Override
+        public String getEndingFor(File file, byte[] raw) {
+            // the same US-ASCII assumption as above, without opening the file again
+            for (int i = 0; i < raw.length; ++i) {
+                if (raw[i] == '\n') {
+                    return UNIX.str();
+                } else if (raw[i] == '\r') {
+                    return i + 1 < raw.length && raw[i + 1] == '\n' ? WINDOWS.str() : MAC_CLASSIC.str();
+                }
+            }
+            // assume UNIX line endings if no line ending was found
+            return UNIX.str();
+        }
+
         static String getEndingFor(Reader reader) throws IOException {
             char previousCharacter = 0;
             char currentCharacter = 0;
@@ -184,6 +211,15 @@ public enum LineEnding {
 		/** Returns the line ending appropriate for the given file. */
 		String getEndingFor(File file);
 
+		/**
+		 * Returns the line ending appropriate for the given file, whose current content has already been read as
+		 * {@code raw}. Policies which depend on the content (e.g. {@link LineEnding#PRESERVE}) use it instead of
+		 * reading the file again.
+		 */
+		default String getEndingFor(File file, byte[] raw) {
+			return getEndingFor(file);
+		}
+
 		/** Returns true iff this file has unix line endings. */
 		public default boolean isUnix(File file) {
 			Objects.requireNonNull(file);
@@ -192,6 +228,33 @@ public enum LineEnding {
 		}
 	}
 
+	/**
+	 * Returns true iff {@code text} is {@code unix} with every {@code \n} replaced by {@code ending}, without
+	 * building that string. Clean files are the common case, so they skip a full-size copy.
+	 */
+	static boolean equalsWithEnding(String text, String unix, String ending) {
+		if (ending.equals(UNIX.str())) {
+			return text.equals(unix);
+		}
+		int t = 0;
+		int u = 0;
+		while (true) {
+			int newline = unix.indexOf('\n', u);
+			int length = (newline == -1 ? unix.length() : newline) - u;
+			if (!text.regionMatches(t, unix, u, length)) {
+				return false;
+			}
+			t += length;
+			if (newline == -1) {
+				return t == text.length();
+			} else if (!text.startsWith(ending, t)) {
+				return false;
+			}
+			t += ending.length();
+			u = newline + 1;
+		}
+	}
+
 	/** Returns a string with exclusively unix line endings. */
 	public static String toUnix(String input) {
 		int lastCarriageReturn = input.lastIndexOf('\r');
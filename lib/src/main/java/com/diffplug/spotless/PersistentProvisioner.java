@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Provisioner} which remembers resolved artifacts on disk across builds, keyed by the
+ * coordinates, {@code withTransitives} and a fingerprint of the repositories they were resolved from.
+ * A remembered result is only used while every one of its files still exists with the same size,
+ * otherwise the request goes to the real provisioner again.
+ * <p>
+ * Requests with dynamic versions (ranges, {@code +}, {@code latest.*}, {@code -SNAPSHOT}) are never
+ * remembered, since resolving them again may legitimately give a different answer.
+ * <p>
+ * Only wrap provisioners whose result is fully determined by the coordinates and the repositories. A remembered
+ * result skips the delegate entirely, along with anything it would enforce while resolving, such as Gradle's
+ * dependency verification, dependency locking or resolution rules, which is why plugin-gradle doesn't use it.
+ */
+public final class PersistentProvisioner implements Provisioner {
+	private final Provisioner delegate;
+	private final Path cacheDir;
+	private final Supplier<String> repositoryFingerprint;
+
+	private PersistentProvisioner(Provisioner delegate, Path cacheDir, Supplier<String> repositoryFingerprint) {
+		this.delegate = Objects.requireNonNull(delegate);
+		this.cacheDir = Objects.requireNonNull(cacheDir);
+		this.repositoryFingerprint = Objects.requireNonNull(repositoryFingerprint);
+	}
+
+	/**
+	 * Wraps the given provisioner.
+	 *
+	 * @param cacheDir where the resolved artifact sets are kept
+	 * @param repositoryFingerprint describes the repositories the delegate resolves from, evaluated on each request
+	 */
+	public static Provisioner wrap(Provisioner delegate, File cacheDir, Supplier<String> repositoryFingerprint) {
+		return new PersistentProvisioner(delegate, cacheDir.toPath(), repositoryFingerprint);
+	}
+
+	@Override
+	public Set<File> provisionWithTransitives(boolean withTransitives, Collection<String> mavenCoordinates) {
+		if (mavenCoordinates.stream().anyMatch(PersistentProvisioner::isDynamic)) {
+			return delegate.provisionWithTransitives(withTransitives, mavenCoordinates);
+		}
+		Path entry = entryFor(withTransitives, mavenCoordinates);
+		Set<File> cached = read(entry);
+		if (cached != null) {
+			return cached;
+		}
+		Set<File> resolved = delegate.provisionWithTransitives(withTransitives, mavenCoordinates);
+		write(entry, resolved);
+		return resolved;
+	}
+
+	private static boolean isDynamic(String coordinate) {
+		return coordinate.contains("+")
+				|| coordinate.contains("[")
+				|| coordinate.contains("(")
+				|| coordinate.contains("latest.")
+				|| coordinate.endsWith("-SNAPSHOT");
+	}
+
+	private Path entryFor(boolean withTransitives, Collection<String> mavenCoordinates) {
+		MessageDigest digest = ThrowingEx.get(() -> MessageDigest.getInstance("SHA-256"));
+		digest.update(repositoryFingerprint.get().getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		digest.update((byte) (withTransitives ? 1 : 0));
+		for (String coordinate : mavenCoordinates) {
+			digest.update((byte) 0);
+			digest.update(coordinate.getBytes(StandardCharsets.UTF_8));
+		}
+		return cacheDir.resolve(HexFormat.of().formatHex(digest.digest()) + ".txt");
+	}
+
+	/** Returns the remembered files, or null if there are none or any of them has changed. */
+	private static @Nullable Set<File> read(Path entry) {
+		if (!Files.isRegularFile(entry)) {
+			return null;
+		}
+		try {
+			Set<File> files = new LinkedHashSet<>();
+			for (String line : Files.readAllLines(entry, StandardCharsets.UTF_8)) {
+				int tab = line.indexOf('\t');
+				File file = new File(line.substring(tab + 1));
+				if (tab == -1 || !file.isFile() || file.length() != Long.parseLong(line.substring(0, tab))) {
+					return null;
+				}
+				files.add(file);
+			}
+			return Collections.unmodifiableSet(files);
+		} catch (IOException | NumberFormatException e) {
+			// a corrupt entry is simply resolved again and overwritten
+			return null;
+		}
+	}
+
+	private static void write(Path entry, Set<File> files) {
+		List<String> lines = new ArrayList<>(files.size());
+		for (File file : files) {
+			lines.add(file.length() + "\t" + file.getAbsolutePath());
+		}
+		// the persistent cache is only an optimization, the resolved files are still valid
+		AtomicFiles.writeBestEffort(entry, temp -> Files.write(temp, lines, StandardCharsets.UTF_8));
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2025 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,12 +18,22 @@ package com.diffplug.spotless;
 import java.io.IOException;
 import java.io.Serializable;
 import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
 
@@ -33,6 +43,15 @@ import org.slf4j.LoggerFactory;
 /**
  * Spotless' global cache. {@link SpotlessCache#clear()} should be called
  * when Spotless is no longer in use to release any resources it has grabbed.
+ * <p>
+ * At the end of a build, or once nothing has {@link #markInUse() marked the cache in use} for a while, classloaders
+ * which have been idle for longer than {@code spotless.classloaderCache.maxIdleMinutes} (default 60) are closed, and
+ * so are the least recently used ones beyond {@code spotless.classloaderCache.maxSize} (default 32). Both are system
+ * properties.
+ * <p>
+ * If the system property {@code spotless.classloaderCache.warmStartDir} is set, the names of the classes each
+ * classloader defines are saved there per {@link JarState}, and a new JVM loads them ahead of time on a background
+ * thread as soon as it creates the classloader for the same jars.
  */
 public final class SpotlessCache {
 	private static final Logger LOGGER = LoggerFactory.getLogger(SpotlessCache.class);
@@ -60,19 +79,187 @@ public final class SpotlessCache {
 		}
 	}
 
-	final Map<SerializedKey, URLClassLoader> cache = new HashMap<>();
+	/**
+	 * A cached classloader and when it was last handed out. The classloader is created by the first lookup, outside
+	 * of the cache's locks, and lookups of the same key wait for it instead of creating their own.
+	 */
+	static final class CachedClassLoader {
+		private final Supplier<URLClassLoader> create;
+		private @Nullable URLClassLoader classLoader;
+		private boolean evicted;
+		volatile long lastAccessNanos;
+
+		CachedClassLoader(Supplier<URLClassLoader> create) {
+			this.create = create;
+			this.lastAccessNanos = System.nanoTime();
+		}
+
+		CachedClassLoader(URLClassLoader classLoader) {
+			this(() -> classLoader);
+		}
+
+		/** Returns the classloader, creating it if needed, or null if it has been evicted meanwhile. */
+		synchronized @Nullable URLClassLoader get() {
+			if (evicted) {
+				return null;
+			}
+			if (classLoader == null) {
+				classLoader = create.get();
+			}
+			return classLoader;
+		}
+
+		/** Returns the classloader if it has been created, without creating it. */
+		synchronized @Nullable URLClassLoader created() {
+			return classLoader;
+		}
+
+		/** Prevents further lookups and returns the classloader to close, if it has been created. */
+		synchronized @Nullable URLClassLoader evict() {
+			evicted = true;
+			return classLoader;
+		}
+	}
 
-	synchronized ClassLoader classloader(JarState state) {
+	static final int MAX_SIZE = Integer.getInteger("spotless.classloaderCache.maxSize", 32);
+	static final long MAX_IDLE_NANOS = TimeUnit.MINUTES.toNanos(Long.getLong("spotless.classloaderCache.maxIdleMinutes", 60));
+	private static final Executor EVICT_WHEN_IDLE = CompletableFuture.delayedExecutor(Long.getLong("spotless.classloaderCache.evictAfterIdleSeconds", 60), TimeUnit.SECONDS);
+	private static final @Nullable Path WARM_START_DIR = warmStartDir();
+
+	private static @Nullable Path warmStartDir() {
+		String dir = System.getProperty("spotless.classloaderCache.warmStartDir");
+		return dir == null || dir.isEmpty() ? null : Path.of(dir);
+	}
+
+	final Map<SerializedKey, CachedClassLoader> cache = new ConcurrentHashMap<>();
+	/** Lookups share the read lock, so they don't block each other, closing classloaders takes the write lock. */
+	private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+	private int inUse;
+	/** Incremented by every {@link #markInUse()}, tells a delayed eviction whether the cache was used meanwhile. */
+	private long useCount;
+
+	ClassLoader classloader(JarState state) {
 		return classloader(state, state);
 	}
 
-	synchronized ClassLoader classloader(Serializable key, JarState state) {
+	ClassLoader classloader(Serializable key, JarState state) {
 		SerializedKey serializedKey = new SerializedKey(key);
-		return cache
-				.computeIfAbsent(serializedKey, k -> {
+		while (true) {
+			CachedClassLoader cached;
+			closeLock.readLock().lock();
+			try {
+				cached = cache.computeIfAbsent(serializedKey, k -> {
 					LOGGER.debug("Allocating an additional FeatureClassLoader for key={} Cache.size was {}", key, cache.size());
-					return new FeatureClassLoader(state.jarUrls(), this.getClass().getClassLoader());
+					return new CachedClassLoader(() -> new FeatureClassLoader(state.jarUrls(), this.getClass().getClassLoader(), classList(state)));
 				});
+				cached.lastAccessNanos = System.nanoTime();
+			} finally {
+				closeLock.readLock().unlock();
+			}
+			// indexing the jars takes a while, so it doesn't hold up eviction or the lookups of other keys
+			URLClassLoader classLoader = cached.get();
+			if (classLoader != null) {
+				return classLoader;
+			}
+			// evicted between the lookup and its creation, look it up again
+		}
+	}
+
+	private static @Nullable Path classList(JarState state) {
+		if (WARM_START_DIR == null) {
+			return null;
+		}
+		MessageDigest digest = ThrowingEx.get(() -> MessageDigest.getInstance("SHA-256"));
+		return WARM_START_DIR.resolve(HexFormat.of().formatHex(digest.digest(LazyForwardingEquality.toBytes(state))) + ".classlist");
+	}
+
+	/** Handle returned by {@link #markInUse()}. */
+	public interface InUse extends AutoCloseable {
+		@Override
+		void close();
+	}
+
+	/**
+	 * Marks the cache as in use (e.g. by a running task) until the returned handle is closed. Classloaders are never
+	 * evicted while anyone is using the cache, and once no one is, only after it has stayed unused for
+	 * {@code spotless.classloaderCache.evictAfterIdleSeconds} (default 60), or at the end of a build, see
+	 * {@link #evictUnused()}. Functions kept by a {@link FormatterFuncRegistry} keep the cache in use as well.
+	 */
+	public static InUse markInUse() {
+		synchronized (INSTANCE) {
+			INSTANCE.inUse++;
+			INSTANCE.useCount++;
+		}
+		return () -> {
+			long useCount;
+			synchronized (INSTANCE) {
+				INSTANCE.inUse--;
+				if (INSTANCE.inUse > 0) {
+					return;
+				}
+				useCount = INSTANCE.useCount;
+			}
+			EVICT_WHEN_IDLE.execute(() -> INSTANCE.evictIfUnusedSince(useCount));
+		};
+	}
+
+	/**
+	 * Closes the classloaders which are idle or beyond the maximum size right away, unless the cache is in use.
+	 * Meant for the end of a build, once every formatter function of the build has been closed.
+	 */
+	public static void evictUnused() {
+		INSTANCE.evict(System.nanoTime());
+	}
+
+	/** Evicts only if the cache hasn't been marked in use again since it was last released. */
+	private void evictIfUnusedSince(long releasedAtUseCount) {
+		synchronized (this) {
+			if (inUse > 0 || useCount != releasedAtUseCount) {
+				return;
+			}
+		}
+		evict(System.nanoTime());
+	}
+
+	/** Closes idle classloaders and the least recently used ones beyond {@link #MAX_SIZE}. */
+	void evict(long nowNanos) {
+		List<URLClassLoader> toClose = new ArrayList<>();
+		closeLock.writeLock().lock();
+		try {
+			synchronized (this) {
+				if (inUse > 0) {
+					return;
+				}
+			}
+			if (WARM_START_DIR != null) {
+				for (CachedClassLoader cached : cache.values()) {
+					URLClassLoader classLoader = cached.created();
+					if (classLoader != null) {
+						saveClassList(classLoader);
+					}
+				}
+			}
+			List<Map.Entry<SerializedKey, CachedClassLoader>> byAccess = new ArrayList<>(cache.entrySet());
+			byAccess.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccessNanos));
+			int remaining = byAccess.size();
+			for (Map.Entry<SerializedKey, CachedClassLoader> entry : byAccess) {
+				boolean idle = nowNanos - entry.getValue().lastAccessNanos > MAX_IDLE_NANOS;
+				if (idle || remaining > MAX_SIZE) {
+					cache.remove(entry.getKey());
+					URLClassLoader classLoader = entry.getValue().evict();
+					if (classLoader != null) {
+						toClose.add(classLoader);
+					}
+					remaining--;
+				}
+			}
+		} finally {
+			closeLock.writeLock().unlock();
+		}
+		if (!toClose.isEmpty()) {
+			LOGGER.debug("Closing {} idle or least recently used FeatureClassLoaders, {} remain cached", toClose.size(), cache.size());
+		}
+		close(toClose);
 	}
 
 	static SpotlessCache instance() {
@@ -83,12 +270,25 @@ public final class SpotlessCache {
 	 * Closes all cached classloaders.
 	 */
 	private static void clear() {
-		List<URLClassLoader> toDelete;
-		synchronized (INSTANCE) {
-			toDelete = new ArrayList<>(INSTANCE.cache.values());
+		List<URLClassLoader> toDelete = new ArrayList<>();
+		INSTANCE.closeLock.writeLock().lock();
+		try {
+			for (CachedClassLoader cached : INSTANCE.cache.values()) {
+				URLClassLoader classLoader = cached.evict();
+				if (classLoader != null) {
+					toDelete.add(classLoader);
+				}
+			}
 			INSTANCE.cache.clear();
+		} finally {
+			INSTANCE.closeLock.writeLock().unlock();
 		}
-		for (URLClassLoader classLoader : toDelete) {
+		close(toDelete);
+	}
+
+	private static void close(List<URLClassLoader> classLoaders) {
+		for (URLClassLoader classLoader : classLoaders) {
+			saveClassList(classLoader);
 			try {
 				classLoader.close();
 			} catch (IOException e) {
@@ -97,6 +297,12 @@ public final class SpotlessCache {
 		}
 	}
 
+	private static void saveClassList(URLClassLoader classLoader) {
+		if (classLoader instanceof FeatureClassLoader featureClassLoader) {
+			featureClassLoader.saveClassList();
+		}
+	}
+
 	private static volatile Object lastClear;
 
 	/**
@@ -1,5 +1,5 @@
 /*
- * Copyright 2025 DiffPlug
+ * Copyright 2025-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,15 +16,31 @@
 package com.diffplug.spotless.npm;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.diffplug.spotless.ThrowingEx;
 
+/**
+ * Guards a folder against concurrent modification, both by other threads of this JVM and by other processes (e.g.
+ * parallel Gradle daemons or Maven builds on the same machine). Callers which only read the folder can run in
+ * parallel, callers which modify the folder run exclusively.
+ */
 interface ExclusiveFolderAccess {
 
 	static ExclusiveFolderAccess forFolder(@Nonnull File folder) {
@@ -32,30 +48,61 @@ interface ExclusiveFolderAccess {
 	}
 
 	static ExclusiveFolderAccess forFolder(@Nonnull String path) {
-		return new ExclusiveFolderAccessSharedMutex(Objects.requireNonNull(path));
+		return new ExclusiveFolderAccessFileLock(Objects.requireNonNull(path));
 	}
 
+	/** Runs {@code supplier} while no one else modifies the folder, other readers may run at the same time. */
+	<T> T callShared(ThrowingEx.Supplier<T> supplier);
+
+	/** Runs {@code runnable} while no one else reads or modifies the folder. */
 	void runExclusively(ThrowingEx.Runnable runnable);
 
-	final class ExclusiveFolderAccessSharedMutex implements ExclusiveFolderAccess {
+	/**
+	 * Uses a {@link ReentrantReadWriteLock} per folder within the JVM, and a {@link FileLock} on a sibling
+	 * {@code <folder>.lock} file across processes. File locks are held on behalf of the whole JVM, so all shared
+	 * holders within the JVM share one shared file lock.
+	 */
+	final class ExclusiveFolderAccessFileLock implements ExclusiveFolderAccess {
 
-		private static final ConcurrentHashMap<String, Lock> MUTEXES = new ConcurrentHashMap<>();
+		private static final Logger LOGGER = LoggerFactory.getLogger(ExclusiveFolderAccessFileLock.class);
+
+		private static final ConcurrentHashMap<String, FolderLock> LOCKS = new ConcurrentHashMap<>();
 
 		private final String path;
 
-		private ExclusiveFolderAccessSharedMutex(@Nonnull String path) {
+		private ExclusiveFolderAccessFileLock(@Nonnull String path) {
 			this.path = Objects.requireNonNull(path);
 		}
 
-		private Lock getMutex() {
-			return MUTEXES.computeIfAbsent(path, k -> new ReentrantLock());
+		private FolderLock getLock() {
+			return LOCKS.computeIfAbsent(path, FolderLock::new);
 		}
 
 		@Override
-		public void runExclusively(ThrowingEx.Runnable runnable) {
-			final Lock lock = getMutex();
+		public <T> T callShared(ThrowingEx.Supplier<T> supplier) {
+			final FolderLock folderLock = getLock();
+			final Lock lock = folderLock.jvmLock.readLock();
+			lock.lock();
 			try {
-				lock.lock();
+				folderLock.acquireShared();
+				try {
+					return supplier.get();
+				} finally {
+					folderLock.releaseShared();
+				}
+			} catch (Exception e) {
+				throw ThrowingEx.asRuntime(e);
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		@Override
+		public void runExclusively(ThrowingEx.Runnable runnable) {
+			final FolderLock folderLock = getLock();
+			final Lock lock = folderLock.jvmLock.writeLock();
+			lock.lock();
+			try (FileLockHandle ignored = FileLockHandle.acquire(folderLock.lockFile, false)) {
 				runnable.run();
 			} catch (Exception e) {
 				throw ThrowingEx.asRuntime(e);
@@ -63,5 +110,84 @@ interface ExclusiveFolderAccess {
 				lock.unlock();
 			}
 		}
+
+		private static final class FolderLock {
+			private final ReentrantReadWriteLock jvmLock = new ReentrantReadWriteLock();
+			private final Path lockFile;
+
+			private int sharedHolders;
+			@Nullable private FileLockHandle sharedFileLock;
+
+			private FolderLock(String path) {
+				File folder = new File(path);
+				this.lockFile = new File(folder.getParentFile(), folder.getName() + ".lock").toPath();
+			}
+
+			synchronized void acquireShared() throws IOException {
+				// a thread within runExclusively already holds the exclusive file lock, which also covers shared access
+				if (sharedHolders == 0 && !jvmLock.isWriteLockedByCurrentThread()) {
+					sharedFileLock = FileLockHandle.acquire(lockFile, true);
+				}
+				sharedHolders++;
+			}
+
+			synchronized void releaseShared() throws IOException {
+				sharedHolders--;
+				if (sharedHolders == 0 && sharedFileLock != null) {
+					sharedFileLock.close();
+					sharedFileLock = null;
+				}
+			}
+		}
+
+		private static final class FileLockHandle implements AutoCloseable {
+			private static final long MAX_RETRY_DELAY_MILLIS = 100;
+
+			@Nullable private final FileChannel channel;
+
+			private FileLockHandle(@Nullable FileChannel channel) {
+				this.channel = channel;
+			}
+
+			static FileLockHandle acquire(Path lockFile, boolean shared) throws IOException {
+				Files.createDirectories(lockFile.getParent());
+				FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+				try {
+					lock(channel, shared);
+					return new FileLockHandle(channel);
+				} catch (IOException | UnsupportedOperationException e) {
+					channel.close();
+					LOGGER.debug("Unable to lock {}, folder access is only guarded within this JVM", lockFile, e);
+					return new FileLockHandle(null);
+				} catch (InterruptedException e) {
+					channel.close();
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for the lock on " + lockFile, e);
+				}
+			}
+
+			private static void lock(FileChannel channel, boolean shared) throws IOException, InterruptedException {
+				long delay = 1;
+				while (true) {
+					try {
+						// blocks until other processes release conflicting locks, the lock is released when the channel is closed
+						channel.lock(0, Long.MAX_VALUE, shared);
+						return;
+					} catch (OverlappingFileLockException e) {
+						// the file lock is held within this JVM by a copy of this class from another classloader, which
+						// doesn't see our LOCKS, so poll until it is released
+						Thread.sleep(delay);
+						delay = Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+					}
+				}
+			}
+
+			@Override
+			public void close() throws IOException {
+				if (channel != null) {
+					channel.close();
+				}
+			}
+		}
 	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2025 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,10 @@ package com.diffplug.spotless.npm;
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.IOException;
+
+import com.diffplug.spotless.ThrowingEx;
+
 /**
  * Simple implementation on how to escape values when printing json.
  * Implementation is partly based on https://github.com/stleary/JSON-java
@@ -27,37 +31,41 @@ final class JsonEscaper {
 	}
 
 	public static String jsonEscape(Object val) {
+		StringBuilder escaped = new StringBuilder();
+		ThrowingEx.run(() -> writeEscaped(val, escaped));
+		return escaped.toString();
+	}
+
+	/** Writes the json representation of {@code val} directly to {@code out}, without building an intermediate string. */
+	public static void writeEscaped(Object val, Appendable out) throws IOException {
 		requireNonNull(val);
 		if (val instanceof JsonRawValue value) {
-			return jsonEscape(value);
+			out.append(value.getRawJson());
+			return;
 		}
 		if (val instanceof String string) {
-			return jsonEscape(string);
+			writeEscaped(string, out);
+			return;
 		}
 		if (ListableAdapter.canAdapt(val)) {
 			// create an array
-			StringBuilder sb = new StringBuilder();
-			sb.append('[');
+			out.append('[');
 			boolean first = true;
 			for (Object o : ListableAdapter.adapt(val)) {
 				if (first) {
 					first = false;
 				} else {
-					sb.append(", ");
+					out.append(", ");
 				}
-				sb.append(jsonEscape(o));
+				writeEscaped(o, out);
 			}
-			sb.append(']');
-			return sb.toString();
+			out.append(']');
+			return;
 		}
-		return val.toString();
+		out.append(val.toString());
 	}
 
-	private static String jsonEscape(JsonRawValue jsonRawValue) {
-		return jsonRawValue.getRawJson();
-	}
-
-	private static String jsonEscape(String unescaped) {
+	private static void writeEscaped(String unescaped, Appendable escaped) throws IOException {
 		/**
 		 * the following characters are reserved in JSON and must be properly escaped to be used in strings:
 		 * <p>
@@ -72,55 +80,56 @@ final class JsonEscaper {
 		 * additionally we handle xhtml '</bla>' string
 		 * and non-ascii chars
 		 */
-		StringBuilder escaped = new StringBuilder();
 		escaped.append('"');
+		// characters which need no escaping are appended in runs, starting at unescapedFrom
+		int unescapedFrom = 0;
 		char b;
 		char c = 0;
 		for (int i = 0; i < unescaped.length(); i++) {
 			b = c;
 			c = unescaped.charAt(i);
+			String replacement;
 			switch (c) {
 			case '\"':
-				escaped.append('\\').append('"');
+				replacement = "\\\"";
 				break;
 			case '\n':
-				escaped.append('\\').append('n');
+				replacement = "\\n";
 				break;
 			case '\r':
-				escaped.append('\\').append('r');
+				replacement = "\\r";
 				break;
 			case '\t':
-				escaped.append('\\').append('t');
+				replacement = "\\t";
 				break;
 			case '\b':
-				escaped.append('\\').append('b');
+				replacement = "\\b";
 				break;
 			case '\f':
-				escaped.append('\\').append('f');
+				replacement = "\\f";
 				break;
 			case '\\':
-				escaped.append('\\').append('\\');
+				replacement = "\\\\";
 				break;
 			case '/':
-				if (b == '<') {
-					escaped.append('\\');
-				}
-				escaped.append(c);
+				replacement = b == '<' ? "\\/" : null;
 				break;
 			default:
 				if (c < ' ' || (c >= '\u0080' && c < '\u00a0')
 						|| (c >= '\u2000' && c < '\u2100')) {
-					escaped.append('\\').append('u');
 					String hexString = Integer.toHexString(c);
-					escaped.append("0000", 0, 4 - hexString.length());
-					escaped.append(hexString);
+					replacement = "\\u" + "0000".substring(hexString.length()) + hexString;
 				} else {
-					escaped.append(c);
+					replacement = null;
 				}
 			}
+			if (replacement != null) {
+				escaped.append(unescaped, unescapedFrom, i).append(replacement);
+				unescapedFrom = i + 1;
+			}
 		}
+		escaped.append(unescaped, unescapedFrom, unescaped.length());
 		escaped.append('"');
-		return escaped.toString();
 	}
 
 }
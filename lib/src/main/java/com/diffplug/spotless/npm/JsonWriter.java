@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2025 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,7 +15,7 @@
  */
 package com.diffplug.spotless.npm;
 
-import static com.diffplug.spotless.npm.JsonEscaper.jsonEscape;
+import static com.diffplug.spotless.npm.JsonEscaper.writeEscaped;
 
 import java.io.File;
 import java.io.IOException;
@@ -23,7 +23,6 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import com.diffplug.spotless.ThrowingEx;
 
@@ -71,11 +70,27 @@ class JsonWriter {
 	}
 
 	String toJsonString() {
-		final String valueString = valueMap.entrySet()
-				.stream()
-				.map(entry -> "    " + jsonEscape(entry.getKey()) + ": " + jsonEscape(entry.getValue()))
-				.collect(Collectors.joining(",\n"));
-		return "{\n" + valueString + "\n}";
+		StringBuilder json = new StringBuilder();
+		ThrowingEx.run(() -> writeTo(json));
+		return json.toString();
+	}
+
+	/** Writes the json object directly to {@code out}, e.g. a request body, without building the whole string first. */
+	void writeTo(Appendable out) throws IOException {
+		out.append("{\n");
+		boolean first = true;
+		for (Map.Entry<String, Object> entry : valueMap.entrySet()) {
+			if (first) {
+				first = false;
+			} else {
+				out.append(",\n");
+			}
+			out.append("    ");
+			writeEscaped(entry.getKey(), out);
+			out.append(": ");
+			writeEscaped(entry.getValue(), out);
+		}
+		out.append("\n}");
 	}
 
 	JsonRawValue toJsonRawValue() {
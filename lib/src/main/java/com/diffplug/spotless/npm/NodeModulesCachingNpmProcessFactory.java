@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2025 DiffPlug
+ * Copyright 2023-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,15 +16,22 @@
 package com.diffplug.spotless.npm;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.diffplug.spotless.AtomicFiles;
 import com.diffplug.spotless.ProcessRunner.Result;
 
 public final class NodeModulesCachingNpmProcessFactory implements NpmProcessFactory {
@@ -33,6 +40,14 @@ public final class NodeModulesCachingNpmProcessFactory implements NpmProcessFact
 
 	private static final TimedLogger TIMED_LOGGER = TimedLogger.forLogger(LOGGER);
 
+	static final String PACKAGE_LOCKS_DIR = "package-locks";
+
+	private static final Pattern PACKAGE_NAME = Pattern.compile("\"name\"\\s*:\\s*\"[^\"]*\"");
+
+	private static final Pattern DEPENDENCY_SECTION = Pattern.compile("\"(?:dev|peer|optional)?[dD]ependencies\"\\s*:\\s*\\{[^}]*}");
+
+	private static final Pattern SAFE_FILE_NAME = Pattern.compile("[\\w.+-]+");
+
 	private final File cacheDir;
 
 	private final ShadowCopy shadowCopy;
@@ -59,10 +74,21 @@ public final class NodeModulesCachingNpmProcessFactory implements NpmProcessFact
 		return new NodeModulesCachingNpmProcessFactory(cacheDir);
 	}
 
+	/**
+	 * Deletes all files in the cache's content-addressed store which are no longer used by any cached
+	 * {@code node_modules} entry, e.g. after entries for outdated npm dependencies have been deleted.
+	 *
+	 * @return the number of bytes freed
+	 */
+	public long collectGarbage() {
+		return TIMED_LOGGER.withInfo("Collecting unused node_modules files in {}", cacheDir)
+				.call(shadowCopy::collectGarbage);
+	}
+
 	@Override
 	public NpmProcess createNpmInstallProcess(NodeServerLayout nodeServerLayout, NpmFormatterStepLocations formatterStepLocations, OnlinePreferrence onlinePreferrence) {
 		NpmProcess actualNpmInstallProcess = StandardNpmProcessFactory.INSTANCE.createNpmInstallProcess(nodeServerLayout, formatterStepLocations, onlinePreferrence);
-		return new CachingNmpInstall(actualNpmInstallProcess, nodeServerLayout);
+		return new CachingNmpInstall(actualNpmInstallProcess, nodeServerLayout, formatterStepLocations);
 	}
 
 	@Override
@@ -74,10 +100,12 @@ public final class NodeModulesCachingNpmProcessFactory implements NpmProcessFact
 
 		private final NpmProcess actualNpmInstallProcess;
 		private final NodeServerLayout nodeServerLayout;
+		private final NpmFormatterStepLocations formatterStepLocations;
 
-		public CachingNmpInstall(NpmProcess actualNpmInstallProcess, NodeServerLayout nodeServerLayout) {
+		public CachingNmpInstall(NpmProcess actualNpmInstallProcess, NodeServerLayout nodeServerLayout, NpmFormatterStepLocations formatterStepLocations) {
 			this.actualNpmInstallProcess = actualNpmInstallProcess;
 			this.nodeServerLayout = nodeServerLayout;
+			this.formatterStepLocations = formatterStepLocations;
 		}
 
 		@Override
@@ -88,14 +116,75 @@ public final class NodeModulesCachingNpmProcessFactory implements NpmProcessFact
 						.run(() -> shadowCopy.copyEntryInto(entryName(), NodeServerLayout.NODE_MODULES, nodeServerLayout.nodeModulesDir()));
 				return new CachedResult();
 			} else {
-				Result result = TIMED_LOGGER.withInfo("calling actual npm install {}", actualNpmInstallProcess.describe())
-						.call(actualNpmInstallProcess::waitFor);
-				assert result.exitCode() == 0;
+				File packageLock = packageLock();
+				Result result = null;
+				if (packageLock != null && packageLock.isFile()) {
+					result = tryNpmCiOffline(packageLock);
+				}
+				if (result == null) {
+					result = TIMED_LOGGER.withInfo("calling actual npm install {}", actualNpmInstallProcess.describe())
+							.call(actualNpmInstallProcess::waitFor);
+					assert result.exitCode() == 0;
+					if (packageLock != null) {
+						storePackageLock(packageLock);
+					}
+				}
 				storeShadowCopy(entryName);
 				return result;
 			}
 		}
 
+		/** Installs from a previously cached package-lock.json, returns null if that is not possible. */
+		private Result tryNpmCiOffline(File packageLock) {
+			NpmProcess npmCiOffline = StandardNpmProcessFactory.INSTANCE.createNpmCiOfflineProcess(nodeServerLayout, formatterStepLocations);
+			try {
+				Files.copy(packageLock.toPath(), nodeServerLayout.packageLockJsonFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+				return TIMED_LOGGER.withInfo("Using cached package-lock.json for {} from {}", entryName(), packageLock)
+						.call(npmCiOffline::waitFor);
+			} catch (IOException | NpmProcessException e) {
+				// most likely the npm cache does not contain all packages, so resolve them the regular way
+				LOGGER.info("Unable to install from cached package-lock.json {}, falling back to npm install", packageLock, e);
+				return null;
+			}
+		}
+
+		/**
+		 * The cached package-lock.json for the dependencies of the current package.json and the npm version, or null if
+		 * the npm version can't be determined. Unlike the node_modules entry, it doesn't depend on the rest of the
+		 * package.json or on serve.js, so it still applies when only those changed (e.g. after a Spotless upgrade).
+		 */
+		private @Nullable File packageLock() {
+			String npmVersion;
+			try {
+				npmVersion = StandardNpmProcessFactory.INSTANCE.createNpmVersionProcess(nodeServerLayout, formatterStepLocations)
+						.waitFor()
+						.stdOutUtf8()
+						.trim();
+			} catch (NpmProcessException e) {
+				LOGGER.info("Unable to determine the npm version, package-lock.json is not cached.", e);
+				return null;
+			}
+			if (npmVersion.isEmpty() || !SAFE_FILE_NAME.matcher(npmVersion).matches()) {
+				return null;
+			}
+			String dependenciesHash = NpmResourceHelper.md5(dependenciesOf(NpmResourceHelper.readUtf8StringFromFile(nodeServerLayout.packageJsonFile())));
+			return new File(new File(cacheDir, PACKAGE_LOCKS_DIR), "%s-npm-%s.json".formatted(dependenciesHash, npmVersion));
+		}
+
+		private void storePackageLock(File packageLock) {
+			File installedPackageLock = nodeServerLayout.packageLockJsonFile();
+			if (packageLock.exists() || !installedPackageLock.isFile()) {
+				return;
+			}
+			try {
+				// a concurrent build which stored it first installed the same dependencies
+				AtomicFiles.write(packageLock.toPath(), false, temp -> Files.copy(installedPackageLock.toPath(), temp, StandardCopyOption.REPLACE_EXISTING));
+			} catch (IOException e) {
+				// Log but don't fail
+				LOGGER.warn("Unable to cache package-lock.json for {}", entryName(), e);
+			}
+		}
+
 		private void storeShadowCopy(String entryName) {
 			TIMED_LOGGER.withInfo("Caching node_modules for {} in {}", entryName, cacheDir)
 					.run(() -> shadowCopy.addEntry(entryName(), new File(nodeServerLayout.nodeModulesDir(), NodeServerLayout.NODE_MODULES)));
@@ -111,6 +200,20 @@ public final class NodeModulesCachingNpmProcessFactory implements NpmProcessFact
 		}
 	}
 
+	/** The name and the dependency sections of the given package.json, which is all that a package-lock.json depends on. */
+	static String dependenciesOf(String packageJsonContent) {
+		StringBuilder dependencies = new StringBuilder();
+		Matcher name = PACKAGE_NAME.matcher(packageJsonContent);
+		if (name.find()) {
+			dependencies.append(name.group());
+		}
+		Matcher sections = DEPENDENCY_SECTION.matcher(packageJsonContent);
+		while (sections.find()) {
+			dependencies.append('\n').append(sections.group());
+		}
+		return dependencies.toString();
+	}
+
 	private class CachedResult extends Result {
 
 		public CachedResult() {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2020-2025 DiffPlug
+ * Copyright 2020-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -63,6 +63,10 @@ class NodeServerLayout {
 		return packageJsonFile;
 	}
 
+	File packageLockJsonFile() {
+		return packageLockJsonFile;
+	}
+
 	File serveJsFile() {
 		return serveJsFile;
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2025 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,11 +33,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.diffplug.spotless.FormatterFunc;
+import com.diffplug.spotless.FormatterStep;
 import com.diffplug.spotless.ProcessRunner;
 import com.diffplug.spotless.ProcessRunner.LongRunningProcess;
 import com.diffplug.spotless.ThrowingEx;
 
-abstract class NpmFormatterStepStateBase implements Serializable {
+abstract class NpmFormatterStepStateBase implements Serializable, FormatterStep.SlowToStart {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(NpmFormatterStepStateBase.class);
 
@@ -90,17 +91,21 @@ abstract class NpmFormatterStepStateBase implements Serializable {
 		}
 
 		protected void assertNodeServerDirReady() throws IOException {
-			ExclusiveFolderAccess.forFolder(nodeServerLayout.nodeModulesDir())
-					.runExclusively(() -> {
-						if (needsPrepareNodeServerLayout()) {
-							// reinstall if missing
-							prepareNodeServerLayout();
-						}
-						if (needsPrepareNodeServer()) {
-							// run npm install if node_modules is missing
-							prepareNodeServer();
-						}
-					});
+			ExclusiveFolderAccess folderAccess = ExclusiveFolderAccess.forFolder(nodeServerLayout.nodeModulesDir());
+			// usually everything is already installed, checking that only needs to exclude concurrent installs
+			if (folderAccess.callShared(() -> !needsPrepareNodeServerLayout() && !needsPrepareNodeServer())) {
+				return;
+			}
+			folderAccess.runExclusively(() -> {
+				if (needsPrepareNodeServerLayout()) {
+					// reinstall if missing
+					prepareNodeServerLayout();
+				}
+				if (needsPrepareNodeServer()) {
+					// run npm install if node_modules is missing
+					prepareNodeServer();
+				}
+			});
 		}
 
 		protected boolean needsPrepareNodeServer() {
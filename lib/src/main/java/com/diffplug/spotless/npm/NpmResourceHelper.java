@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2025 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,7 +19,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -95,6 +97,25 @@ final class NpmResourceHelper {
 		}
 	}
 
+	/**
+	 * Decodes the stream directly into the resulting string's buffer, which is presized if the expected length (in
+	 * bytes, e.g. from a Content-Length header) is known, so no intermediate byte copy of the content is needed.
+	 */
+	static String readUtf8StringFromInputStream(InputStream input, long expectedLength) {
+		int capacity = expectedLength > 0 && expectedLength < Integer.MAX_VALUE ? (int) expectedLength : 1024;
+		try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+			StringBuilder output = new StringBuilder(capacity);
+			char[] buffer = new char[8 * 1024];
+			int numRead;
+			while ((numRead = reader.read(buffer)) != -1) {
+				output.append(buffer, 0, numRead);
+			}
+			return output.toString();
+		} catch (IOException e) {
+			throw ThrowingEx.asRuntime(e);
+		}
+	}
+
 	static void assertDirectoryExists(File directory) throws IOException {
 		if (!directory.exists()) {
 			if (!directory.mkdirs()) {
@@ -17,16 +17,21 @@ package com.diffplug.spotless.npm;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileSystemException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 import javax.annotation.Nonnull;
@@ -34,14 +39,27 @@ import javax.annotation.Nonnull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.diffplug.spotless.AtomicFiles;
 import com.diffplug.spotless.ThrowingEx;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
+/**
+ * Caches directories (typically {@code node_modules}) under a root folder.
+ * <p>
+ * The files of every entry are backed by a content-addressed store ({@value #STORE_DIR} in the root folder), so a
+ * file which is identical across several entries is kept on disk only once - each entry is made of hard links into
+ * the store. Entries and store files are never modified after they have been atomically moved into place, so readers
+ * need no locking. Store files which are no longer referenced by any entry can be removed with {@link #collectGarbage()}.
+ */
 class ShadowCopy {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(ShadowCopy.class);
 
+	static final String STORE_DIR = ".store";
+
+	private static final String UNIX_LINK_COUNT = "unix:nlink";
+
 	private final Supplier<File> shadowCopyRootSupplier;
 
 	public ShadowCopy(@Nonnull Supplier<File> shadowCopyRootSupplier) {
@@ -78,8 +96,8 @@ class ShadowCopy {
 		LOGGER.debug("Will store entry {} to temporary directory {}, which is a sibling of the ultimate target {}", orig, tempDirectory, target);
 
 		try {
-			// Copy orig to temp dir
-			Files.walkFileTree(orig.toPath(), new CopyDirectoryRecursively(tempDirectory, orig.toPath()));
+			// Link orig into temp dir, backed by the content-addressed store
+			Files.walkFileTree(orig.toPath(), new StoreDirectoryRecursively(tempDirectory, orig.toPath(), store()));
 			try {
 				LOGGER.debug("Finished storing entry {}. Atomically moving temporary directory {} into final place {}", key, tempDirectory, target);
 				// Atomically rename the completed cache entry into place
@@ -102,6 +120,45 @@ class ShadowCopy {
 		}
 	}
 
+	/**
+	 * Removes all files from the store which are no longer referenced by any entry (or any copy of an entry).
+	 *
+	 * @return the number of bytes freed
+	 */
+	public long collectGarbage() {
+		Path store = store();
+		if (!Files.isDirectory(store)) {
+			return 0;
+		}
+		AtomicLong freed = new AtomicLong();
+		try {
+			Files.walkFileTree(store, new SimpleFileVisitor<>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					if (file.getFileName().toString().endsWith(AtomicFiles.TEMP_SUFFIX)) {
+						return FileVisitResult.CONTINUE; // currently being stored by someone else
+					}
+					// the store itself holds one link, every entry or copy of an entry holds another
+					if (((Number) Files.getAttribute(file, UNIX_LINK_COUNT, LinkOption.NOFOLLOW_LINKS)).intValue() <= 1) {
+						Files.deleteIfExists(file);
+						freed.addAndGet(attrs.size());
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (UnsupportedOperationException | IllegalArgumentException e) {
+			LOGGER.info("The filesystem at {} does not report hard link counts, skipping garbage collection.", store);
+		} catch (IOException e) {
+			throw ThrowingEx.asRuntime(e);
+		}
+		LOGGER.debug("Garbage collection of {} freed {} bytes", store, freed.get());
+		return freed.get();
+	}
+
+	private Path store() {
+		return shadowCopyRoot().toPath().resolve(STORE_DIR);
+	}
+
 	public File getEntry(String key, String fileName) {
 		return entry(key, fileName);
 	}
@@ -126,10 +183,10 @@ class ShadowCopy {
 	}
 
 	private static class CopyDirectoryRecursively extends SimpleFileVisitor<Path> {
-		private final Path target;
-		private final Path orig;
+		final Path target;
+		final Path orig;
 
-		private boolean tryHardLink = true;
+		boolean tryHardLink = true;
 
 		public CopyDirectoryRecursively(Path target, Path orig) {
 			this.target = target;
@@ -145,22 +202,94 @@ class ShadowCopy {
 
 		@Override
 		public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+			Path targetFile = target.resolve(orig.relativize(file));
+			if (attrs.isSymbolicLink()) {
+				// keep links such as node_modules/.bin/* as links
+				Files.copy(file, targetFile, LinkOption.NOFOLLOW_LINKS);
+			} else {
+				linkOrCopy(file, targetFile);
+			}
+			return super.visitFile(file, attrs);
+		}
+
+		void linkOrCopy(Path source, Path targetFile) throws IOException {
 			// first try to hardlink, if that fails, copy
 			if (tryHardLink) {
 				try {
-					Files.createLink(target.resolve(orig.relativize(file)), file);
-					return super.visitFile(file, attrs);
+					Files.createLink(targetFile, source);
+					return;
+				} catch (NoSuchFileException e) {
+					// the source is gone, which says nothing about whether hard links are supported
+					throw e;
 				} catch (UnsupportedOperationException | SecurityException | FileSystemException e) {
-					LOGGER.debug("Shadow copy entry does not support hard links: {}. Switching to 'copy'.", file, e);
+					LOGGER.debug("Shadow copy entry does not support hard links: {}. Switching to 'copy'.", source, e);
 					tryHardLink = false; // remember that hard links are not supported
 				} catch (IOException e) {
-					LOGGER.debug("Shadow copy entry failed to create hard link: {}. Switching to 'copy'.", file, e);
+					LOGGER.debug("Shadow copy entry failed to create hard link: {}. Switching to 'copy'.", source, e);
 					tryHardLink = false; // remember that hard links are not supported
 				}
 			}
 			// copy file to target
-			Files.copy(file, target.resolve(orig.relativize(file)));
-			return super.visitFile(file, attrs);
+			Files.copy(source, targetFile);
+		}
+	}
+
+	/** Like {@link CopyDirectoryRecursively}, but each file is first deduplicated into the store and then linked from there. */
+	private static class StoreDirectoryRecursively extends CopyDirectoryRecursively {
+		private static final int MAX_STORE_ATTEMPTS = 3;
+
+		private final Path store;
+
+		public StoreDirectoryRecursively(Path target, Path orig, Path store) {
+			super(target, orig);
+			this.store = store;
+		}
+
+		@Override
+		public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+			if (attrs.isSymbolicLink()) {
+				return super.visitFile(file, attrs);
+			}
+			Path targetFile = target.resolve(orig.relativize(file));
+			for (int attempt = 1;; ++attempt) {
+				try {
+					linkOrCopy(storeFile(file), targetFile);
+					return FileVisitResult.CONTINUE;
+				} catch (NoSuchFileException e) {
+					// until it is linked, a store file has only the store's link, so garbage collection may remove it
+					if (attempt == MAX_STORE_ATTEMPTS) {
+						throw e;
+					}
+					LOGGER.debug("Store file for {} was removed concurrently, storing it again", file, e);
+				}
+			}
+		}
+
+		private Path storeFile(Path file) throws IOException {
+			String hash = sha256(file);
+			Path stored = store.resolve(hash.substring(0, 2)).resolve(hash);
+			if (Files.exists(stored)) {
+				return stored;
+			}
+			// the content is identical no matter who stores it first
+			AtomicFiles.write(stored, false, temp -> Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES));
+			return stored;
+		}
+
+		private static String sha256(Path file) throws IOException {
+			MessageDigest digest = ThrowingEx.get(() -> MessageDigest.getInstance("SHA-256"));
+			byte[] buffer = new byte[64 * 1024];
+			try (InputStream input = Files.newInputStream(file)) {
+				int numRead;
+				while ((numRead = input.read(buffer)) != -1) {
+					digest.update(buffer, 0, numRead);
+				}
+			}
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest.digest()) {
+				sb.append("%02x".formatted(b & 0xff));
+			}
+			return sb.toString();
 		}
 	}
 
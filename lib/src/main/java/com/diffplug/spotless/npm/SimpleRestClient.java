@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2025 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,12 +17,15 @@ package com.diffplug.spotless.npm;
 
 import static java.util.Objects.requireNonNull;
 
-import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 import javax.annotation.Nonnull;
@@ -41,9 +44,13 @@ final class SimpleRestClient {
 
 	String postJson(String endpoint, Map<String, Object> jsonParams) throws SimpleRestException {
 		final JsonWriter jsonWriter = JsonWriter.of(jsonParams);
-		final String jsonString = jsonWriter.toJsonString();
 
-		return postJson(endpoint, jsonString);
+		// the params may contain whole (large) files, so escape them straight into the request body
+		return post(endpoint, out -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+			jsonWriter.writeTo(writer);
+			writer.flush();
+		});
 	}
 
 	String post(String endpoint) throws SimpleRestException {
@@ -51,6 +58,10 @@ final class SimpleRestClient {
 	}
 
 	String postJson(String endpoint, @Nullable String rawJson) throws SimpleRestException {
+		return post(endpoint, rawJson == null ? null : out -> NpmResourceHelper.writeUtf8StringToOutputStream(rawJson, out));
+	}
+
+	private String post(String endpoint, @Nullable RequestBody requestBody) throws SimpleRestException {
 		try {
 			URL url = new URL(this.baseUrl + endpoint);
 			HttpURLConnection con = (HttpURLConnection) url.openConnection();
@@ -59,9 +70,11 @@ final class SimpleRestClient {
 			con.setRequestMethod("POST");
 			con.setRequestProperty("Content-Type", "application/json");
 			con.setDoOutput(true);
-			if (rawJson != null) {
+			if (requestBody != null) {
+				// without streaming mode, HttpURLConnection buffers the complete body in memory before sending it
+				con.setChunkedStreamingMode(0);
 				try (OutputStream out = con.getOutputStream()) {
-					NpmResourceHelper.writeUtf8StringToOutputStream(rawJson, out);
+					requestBody.writeTo(out);
 					out.flush();
 				}
 			}
@@ -79,19 +92,24 @@ final class SimpleRestClient {
 	}
 
 	private String readError(HttpURLConnection con) throws IOException {
-		return readInputStream(con.getErrorStream());
+		return readInputStream(con.getErrorStream(), con.getContentLengthLong());
 	}
 
 	private String readResponse(HttpURLConnection con) throws IOException {
-		return readInputStream(con.getInputStream());
+		return readInputStream(con.getInputStream(), con.getContentLengthLong());
 	}
 
-	private String readInputStream(InputStream inputStream) throws IOException {
-		try (BufferedInputStream input = new BufferedInputStream(inputStream)) {
-			return NpmResourceHelper.readUtf8StringFromInputStream(input);
+	private String readInputStream(InputStream inputStream, long contentLength) throws IOException {
+		try (InputStream input = inputStream) {
+			return NpmResourceHelper.readUtf8StringFromInputStream(input, contentLength);
 		}
 	}
 
+	@FunctionalInterface
+	private interface RequestBody {
+		void writeTo(OutputStream out) throws IOException;
+	}
+
 	abstract static class SimpleRestException extends RuntimeException {
 		private static final long serialVersionUID = -8260821395756603787L;
 
@@ -37,6 +37,19 @@ public final class StandardNpmProcessFactory implements NpmProcessFactory {
 		return new NpmInstall(nodeServerLayout.nodeModulesDir(), formatterStepLocations, onlinePreferrence);
 	}
 
+	/**
+	 * Creates an {@code npm ci --offline} process, which installs exactly what the {@code package-lock.json} in the
+	 * node modules dir prescribes, using only the local npm cache.
+	 */
+	public NpmProcess createNpmCiOfflineProcess(NodeServerLayout nodeServerLayout, NpmFormatterStepLocations formatterStepLocations) {
+		return new NpmCiOffline(nodeServerLayout.nodeModulesDir(), formatterStepLocations);
+	}
+
+	/** Creates an {@code npm --version} process, its trimmed stdout is the version of the npm executable. */
+	public NpmProcess createNpmVersionProcess(NodeServerLayout nodeServerLayout, NpmFormatterStepLocations formatterStepLocations) {
+		return new NpmVersion(nodeServerLayout.nodeModulesDir(), formatterStepLocations);
+	}
+
 	@Override
 	public NpmLongRunningProcess createNpmServeProcess(NodeServerLayout nodeServerLayout, NpmFormatterStepLocations formatterStepLocations, UUID nodeServerInstanceId) {
 		return new NpmServe(nodeServerLayout.nodeModulesDir(), formatterStepLocations, nodeServerInstanceId);
@@ -77,6 +90,19 @@ public final class StandardNpmProcessFactory implements NpmProcessFactory {
 		public String doDescribe() {
 			return "%s in %s [%s]".formatted(getClass().getSimpleName(), workingDir, String.join(" ", commandLine()));
 		}
+
+		protected ProcessRunner.Result doWaitFor() {
+			try (ProcessRunner.LongRunningProcess npmProcess = doStart()) {
+				if (npmProcess.waitFor() != 0) {
+					throw new NpmProcessException("Running npm command '" + describe() + "' failed with exit code: " + npmProcess.exitValue() + "\n\n" + npmProcess.result(), npmProcess.result());
+				}
+				return npmProcess.result();
+			} catch (InterruptedException e) {
+				throw new NpmProcessException("Running npm command '" + describe() + "' was interrupted.", e);
+			} catch (ExecutionException e) {
+				throw new NpmProcessException("Running npm command '" + describe() + "' failed.", e);
+			}
+		}
 	}
 
 	private static class NpmInstall extends AbstractStandardNpmProcess implements NpmProcess {
@@ -105,16 +131,58 @@ public final class StandardNpmProcessFactory implements NpmProcessFactory {
 
 		@Override
 		public ProcessRunner.Result waitFor() {
-			try (ProcessRunner.LongRunningProcess npmProcess = doStart()) {
-				if (npmProcess.waitFor() != 0) {
-					throw new NpmProcessException("Running npm command '" + describe() + "' failed with exit code: " + npmProcess.exitValue() + "\n\n" + npmProcess.result(), npmProcess.result());
-				}
-				return npmProcess.result();
-			} catch (InterruptedException e) {
-				throw new NpmProcessException("Running npm command '" + describe() + "' was interrupted.", e);
-			} catch (ExecutionException e) {
-				throw new NpmProcessException("Running npm command '" + describe() + "' failed.", e);
-			}
+			return doWaitFor();
+		}
+	}
+
+	private static class NpmCiOffline extends AbstractStandardNpmProcess implements NpmProcess {
+
+		public NpmCiOffline(File workingDir, NpmFormatterStepLocations formatterStepLocations) {
+			super(workingDir, formatterStepLocations);
+		}
+
+		@Override
+		protected List<String> commandLine() {
+			return List.of(
+					npmExecutable(),
+					"ci",
+					"--no-audit",
+					"--no-fund",
+					"--offline");
+		}
+
+		@Override
+		public String describe() {
+			return doDescribe();
+		}
+
+		@Override
+		public ProcessRunner.Result waitFor() {
+			return doWaitFor();
+		}
+	}
+
+	private static class NpmVersion extends AbstractStandardNpmProcess implements NpmProcess {
+
+		public NpmVersion(File workingDir, NpmFormatterStepLocations formatterStepLocations) {
+			super(workingDir, formatterStepLocations);
+		}
+
+		@Override
+		protected List<String> commandLine() {
+			return List.of(
+					npmExecutable(),
+					"--version");
+		}
+
+		@Override
+		public String describe() {
+			return doDescribe();
+		}
+
+		@Override
+		public ProcessRunner.Result waitFor() {
+			return doWaitFor();
 		}
 	}
 
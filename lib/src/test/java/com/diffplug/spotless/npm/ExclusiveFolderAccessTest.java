@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless.npm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExclusiveFolderAccessTest {
+
+	@Test
+	void sharedAccessesRunConcurrently(@TempDir Path tmp) throws Exception {
+		ExclusiveFolderAccess access = ExclusiveFolderAccess.forFolder(tmp.resolve("node-modules").toFile());
+		CountDownLatch bothInside = new CountDownLatch(2);
+
+		CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> access.callShared(() -> {
+			bothInside.countDown();
+			return bothInside.await(10, TimeUnit.SECONDS);
+		}));
+		boolean second = access.callShared(() -> {
+			bothInside.countDown();
+			return bothInside.await(10, TimeUnit.SECONDS);
+		});
+
+		assertThat(second).isTrue();
+		assertThat(first.get(10, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	void exclusiveAccessWaitsForSharedAccess(@TempDir Path tmp) throws Exception {
+		File folder = tmp.resolve("node-modules").toFile();
+		ExclusiveFolderAccess access = ExclusiveFolderAccess.forFolder(folder);
+		CountDownLatch sharedEntered = new CountDownLatch(1);
+		CountDownLatch releaseShared = new CountDownLatch(1);
+		CountDownLatch exclusiveEntered = new CountDownLatch(1);
+		List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+		CompletableFuture<Void> shared = CompletableFuture.runAsync(() -> access.callShared(() -> {
+			sharedEntered.countDown();
+			releaseShared.await(10, TimeUnit.SECONDS);
+			events.add("shared exits");
+			return null;
+		}));
+		assertThat(sharedEntered.await(10, TimeUnit.SECONDS)).isTrue();
+
+		CompletableFuture<Void> exclusive = CompletableFuture.runAsync(() -> access.runExclusively(() -> {
+			events.add("exclusive enters");
+			exclusiveEntered.countDown();
+		}));
+		assertThat(exclusiveEntered.await(200, TimeUnit.MILLISECONDS)).isFalse();
+		releaseShared.countDown();
+
+		exclusive.get(10, TimeUnit.SECONDS);
+		shared.get(10, TimeUnit.SECONDS);
+		assertThat(events).containsExactly("shared exits", "exclusive enters");
+		assertThat(new File(tmp.toFile(), "node-modules.lock")).exists();
+	}
+
+	@Test
+	void sharedAccessCanBeNestedInExclusiveAccess(@TempDir Path tmp) {
+		ExclusiveFolderAccess access = ExclusiveFolderAccess.forFolder(tmp.resolve("node-modules").toFile());
+		AtomicBoolean nestedRan = new AtomicBoolean();
+
+		access.runExclusively(() -> nestedRan.set(access.callShared(() -> true)));
+
+		assertThat(nestedRan).isTrue();
+	}
+
+	@Test
+	void waitsForFileLockHeldElsewhereInThisJvm(@TempDir Path tmp) throws Exception {
+		ExclusiveFolderAccess access = ExclusiveFolderAccess.forFolder(tmp.resolve("node-modules").toFile());
+		CountDownLatch sharedEntered = new CountDownLatch(1);
+		CompletableFuture<Void> shared;
+
+		// e.g. the same class loaded by another classloader, whose locks within the JVM are separate from ours
+		try (FileChannel channel = FileChannel.open(tmp.resolve("node-modules.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+				FileLock ignored = channel.lock()) {
+			shared = CompletableFuture.runAsync(() -> access.callShared(() -> {
+				sharedEntered.countDown();
+				return null;
+			}));
+			assertThat(sharedEntered.await(200, TimeUnit.MILLISECONDS)).isFalse();
+		}
+
+		shared.get(10, TimeUnit.SECONDS);
+		assertThat(sharedEntered.getCount()).isZero();
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless.npm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.condition.OS.WINDOWS;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.diffplug.spotless.npm.NpmProcessFactory.OnlinePreferrence;
+
+@DisabledOnOs(WINDOWS)
+class NodeModulesCachingNpmProcessFactoryTest {
+
+	private static final String PACKAGE_JSON = """
+			{
+				"name": "spotless-prettier",
+				"version": "%s",
+				"devDependencies": {
+					"prettier": "3.0.0"
+				},
+				"dependencies": {}
+			}""";
+
+	@TempDir
+	Path tmp;
+
+	private File npmLog;
+	private NpmFormatterStepLocations locations;
+	private NodeModulesCachingNpmProcessFactory factory;
+
+	@BeforeEach
+	void fakeNpm() throws IOException {
+		npmLog = tmp.resolve("npm.log").toFile();
+		File npm = tmp.resolve("npm").toFile();
+		Files.writeString(npm.toPath(), """
+				#!/bin/sh
+				echo "$1" >> '%s'
+				case "$1" in
+				  --version) echo 10.0.0 ;;
+				  install) mkdir -p node_modules/prettier && echo installed > node_modules/prettier/index.js && echo '{"lockfileVersion":3}' > package-lock.json ;;
+				  ci) mkdir -p node_modules/prettier && echo from-lockfile > node_modules/prettier/index.js ;;
+				esac
+				""".formatted(npmLog.getAbsolutePath()), StandardCharsets.UTF_8);
+		assertThat(npm.setExecutable(true)).isTrue();
+		File project = tmp.resolve("project").toFile();
+		File build = tmp.resolve("build").toFile();
+		assertThat(project.mkdirs() && build.mkdirs()).isTrue();
+		locations = new NpmFormatterStepLocations(project, build, null,
+				new NpmPathResolver(npm, tmp.resolve("node").toFile(), null, List.of()));
+		factory = NodeModulesCachingNpmProcessFactory.create(tmp.resolve("cache").toFile());
+	}
+
+	@Test
+	void installsFromCachedPackageLockWhenOnlyNonDependencyPartsChanged() throws IOException {
+		install(PACKAGE_JSON.formatted("4.0.0"), "serve();");
+		assertThat(npmCommands()).containsExactly("--version", "install");
+
+		// e.g. a Spotless upgrade changes the version and serve.js, but not the dependencies
+		NodeServerLayout upgraded = install(PACKAGE_JSON.formatted("4.0.1"), "serve(2);");
+		assertThat(npmCommands()).containsExactly("--version", "install", "--version", "ci");
+		assertThat(new File(upgraded.nodeModulesDir(), "node_modules/prettier/index.js")).content().isEqualToIgnoringNewLines("from-lockfile");
+	}
+
+	@Test
+	void installsWithoutPackageLockCacheWhenNpmVersionIsUnknown() throws IOException {
+		Files.writeString(tmp.resolve("npm"), """
+				#!/bin/sh
+				echo "$1" >> '%s'
+				case "$1" in
+				  --version) exit 1 ;;
+				  install) mkdir -p node_modules/prettier && echo installed > node_modules/prettier/index.js ;;
+				esac
+				""".formatted(npmLog.getAbsolutePath()), StandardCharsets.UTF_8);
+
+		NodeServerLayout layout = install(PACKAGE_JSON.formatted("4.0.0"), "serve();");
+		assertThat(npmCommands()).containsExactly("--version", "install");
+		assertThat(new File(layout.nodeModulesDir(), "node_modules/prettier/index.js")).exists();
+		assertThat(tmp.resolve("cache").resolve(NodeModulesCachingNpmProcessFactory.PACKAGE_LOCKS_DIR)).doesNotExist();
+	}
+
+	@Test
+	void dependenciesIgnoreEverythingButNameAndDependencySections() {
+		assertThat(NodeModulesCachingNpmProcessFactory.dependenciesOf(PACKAGE_JSON.formatted("4.0.0")))
+				.isEqualTo(NodeModulesCachingNpmProcessFactory.dependenciesOf(PACKAGE_JSON.formatted("4.0.1")))
+				.isNotEqualTo(NodeModulesCachingNpmProcessFactory.dependenciesOf(PACKAGE_JSON.formatted("4.0.0").replace("3.0.0", "3.0.1")));
+	}
+
+	private NodeServerLayout install(String packageJson, String serveJs) throws IOException {
+		NodeServerLayout layout = new NodeServerLayout(locations.buildDir(), packageJson, serveJs);
+		Files.createDirectories(layout.nodeModulesDir().toPath());
+		Files.writeString(layout.packageJsonFile().toPath(), packageJson, StandardCharsets.UTF_8);
+		factory.createNpmInstallProcess(layout, locations, OnlinePreferrence.PREFER_OFFLINE).waitFor();
+		return layout;
+	}
+
+	private List<String> npmCommands() throws IOException {
+		return Files.readAllLines(npmLog.toPath(), StandardCharsets.UTF_8);
+	}
+}
@@ -51,4 +51,28 @@ class StandardNpmProcessFactoryTest {
 				.contains("--node-server-instance-id=" + serverId)
 				.doesNotContain("scripts-prepend-node-path");
 	}
+
+	@Test
+	void npmCiOfflineCommandLineInstallsFromLockfileWithoutNetwork(@TempDir Path tmp) {
+		File npm = tmp.resolve("npm").toFile();
+		File node = tmp.resolve("node").toFile();
+		File project = tmp.resolve("project").toFile();
+		File build = tmp.resolve("build").toFile();
+		project.mkdirs();
+		build.mkdirs();
+
+		NpmFormatterStepLocations locations = new NpmFormatterStepLocations(
+				project,
+				build,
+				null,
+				new NpmPathResolver(npm, node, null, List.of()));
+		NodeServerLayout layout = new NodeServerLayout(build, "{\"name\":\"spotless-prettier\"}", "console.log('hi');");
+
+		NpmProcess process = StandardNpmProcessFactory.INSTANCE.createNpmCiOfflineProcess(layout, locations);
+
+		assertThat(process.describe())
+				.contains(" ci ")
+				.contains("--offline")
+				.doesNotContain("install");
+	}
 }
@@ -96,6 +96,18 @@ public class CppExtension extends FormatExtension implements HasBuiltinDelimiter
 			replaceStep(builder.build());
 			return this;
 		}
+
+		/**
+		 * Provisions the formatter from the Maven coordinates listed in the given lockfile instead of
+		 * querying Eclipse P2 repositories, e.g. for air-gapped builds. The file lists one
+		 * {@code group:artifact:version} per line, lines starting with {@code #} are comments.
+		 */
+		public EclipseConfig lockfile(Object lockfile) {
+			Objects.requireNonNull(lockfile);
+			builder.setLockfile(getProject().file(lockfile));
+			replaceStep(builder.build());
+			return this;
+		}
 	}
 
 	@Override
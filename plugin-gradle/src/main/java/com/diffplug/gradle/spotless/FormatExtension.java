@@ -749,7 +749,11 @@ public class FormatExtension {
 		}
 
 		File npmModulesCacheOrNull() {
-			return fileOrNull(npmInstallCache);
+			File cacheDir = fileOrNull(npmInstallCache);
+			if (cacheDir != null && project.getExtensions().findByName(SpotlessExtension.EXTENSION) instanceof SpotlessExtension spotless) {
+				spotless.npmInstallCaches.add(cacheDir);
+			}
+			return cacheDir;
 		}
 
 		private File fileOrNull(Object npmFile) {
@@ -1109,6 +1113,10 @@ public class FormatExtension {
 				getProject().provider(() -> lineEndings.createPolicy(projectDir.getAsFile(), () -> totalTarget)));
 		spotless.getSpotlessTaskService().get().hookSubprojectTask(getProject(), task);
 		task.setupRatchet(getRatchetFrom() != null ? getRatchetFrom() : "");
+		task.setRatchetNarrowsTarget(spotless.isRatchetNarrowsTarget());
+		if (spotless.isVerifiedBlobCache()) {
+			task.setVerifiedBlobsDirectory(new File(getProject().getGradle().getGradleUserHomeDir(), "caches/spotless-verified-blobs"));
+		}
 	}
 
 	/** Returns the project that this extension is attached to. */
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.gradle.spotless;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nullable;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import com.diffplug.spotless.extra.GitRatchet;
+
+/**
+ * Keeps the repositories used by {@link GitRatchetGradle} open for the lifetime of the Gradle daemon, so that every
+ * build doesn't reopen them and reread {@code .git/index}, which can be tens of megabytes in a large monorepo.
+ * <ul>
+ * <li>The index is read again only once its timestamp or size changes ({@link DirCache#isOutdated()}).</li>
+ * <li>Merge bases are keyed by the commits which the ref and {@code HEAD} resolve to, so moving either is picked up.</li>
+ * <li>Merge bases are computed with one {@link ObjectReader} per repository, and since the repositories stay open,
+ * jgit's JVM-wide {@code WindowCache} keeps their pack windows from one build to the next.</li>
+ * </ul>
+ * Each {@link GitRatchetGradle} still takes one snapshot of the index per build, so tasks within a build agree.
+ * <p>
+ * Like jgit's {@code RepositoryCache}, a repository which no build has opened for
+ * {@code spotless.gitRatchetCache.maxIdleMinutes} (default 60) is closed, as is one whose git dir has been deleted.
+ * One delayed eviction at a time checks for them while anything is cached, so a repository is closed within twice
+ * that idle time. A build which still uses an evicted repository keeps it open until it closes it itself.
+ */
+final class GitRatchetDaemonCache {
+	private static final int MAX_MERGE_BASES = 64;
+	static final long MAX_IDLE_NANOS = TimeUnit.MINUTES.toNanos(Long.getLong("spotless.gitRatchetCache.maxIdleMinutes", 60));
+	private static final Executor EVICT_WHEN_IDLE = CompletableFuture.delayedExecutor(MAX_IDLE_NANOS, TimeUnit.NANOSECONDS);
+	private static final AtomicBoolean EVICT_SCHEDULED = new AtomicBoolean();
+	private static final Map<File, Entry> ENTRIES = new ConcurrentHashMap<>();
+	/** The same entries as {@link #ENTRIES}, keyed by their repository. */
+	private static final Map<Repository, Entry> BY_REPO = Collections.synchronizedMap(new IdentityHashMap<>());
+
+	private GitRatchetDaemonCache() {}
+
+	private static final class Entry {
+		final Repository repo;
+		final ObjectReader reader;
+		volatile long lastOpenedNanos;
+		/** Guarded by {@code this}. */
+		boolean closed;
+		/** Guarded by {@code this}. */
+		@Nullable DirCache dirCache;
+		/** Guarded by {@code this}, keyed by the ratchetFrom and HEAD commits. */
+		final Map<List<ObjectId>, ObjectId> mergeBaseTrees = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<List<ObjectId>, ObjectId> eldest) {
+				return size() > MAX_MERGE_BASES;
+			}
+		};
+
+		Entry(Repository repo) {
+			this.repo = repo;
+			this.reader = repo.newObjectReader();
+		}
+
+		synchronized void close() {
+			if (!closed) {
+				closed = true;
+				reader.close();
+				repo.close();
+			}
+		}
+	}
+
+	/** Returns the cached repository for the given git dir, which the caller must {@link Repository#close()}. */
+	static Repository open(File gitDir) throws IOException {
+		long now = System.nanoTime();
+		evict(now);
+		while (true) {
+			Entry entry = ENTRIES.get(gitDir);
+			if (entry == null) {
+				Entry created = new Entry(FileRepositoryBuilder.create(gitDir));
+				// indexed by repository first, so that it's never evicted from ENTRIES without leaving BY_REPO too
+				BY_REPO.put(created.repo, created);
+				entry = ENTRIES.putIfAbsent(gitDir, created);
+				if (entry == null) {
+					entry = created;
+				} else {
+					BY_REPO.remove(created.repo);
+					created.close();
+				}
+			}
+			synchronized (entry) {
+				if (entry.closed) {
+					// evicted between the lookup and now, look it up again
+					continue;
+				}
+				entry.lastOpenedNanos = now;
+				// the cache keeps its own reference, so the repository stays open when the caller closes it
+				entry.repo.incrementOpen();
+			}
+			scheduleEvict();
+			return entry.repo;
+		}
+	}
+
+	/** Queues an eviction unless one is pending already, and queues the next one while anything is still cached. */
+	private static void scheduleEvict() {
+		if (EVICT_SCHEDULED.compareAndSet(false, true)) {
+			EVICT_WHEN_IDLE.execute(() -> {
+				EVICT_SCHEDULED.set(false);
+				evict(System.nanoTime());
+				if (!ENTRIES.isEmpty()) {
+					scheduleEvict();
+				}
+			});
+		}
+	}
+
+	/** Closes the repositories which haven't been opened for {@link #MAX_IDLE_NANOS}, or whose git dir is gone. */
+	static void evict(long nowNanos) {
+		ENTRIES.entrySet().removeIf(e -> {
+			boolean idle = nowNanos - e.getValue().lastOpenedNanos >= MAX_IDLE_NANOS;
+			if (!idle && e.getKey().isDirectory()) {
+				return false;
+			}
+			BY_REPO.remove(e.getValue().repo);
+			e.getValue().close();
+			return true;
+		});
+	}
+
+	/** Number of repositories which are kept open. */
+	static int size() {
+		return ENTRIES.size();
+	}
+
+	/** Returns the index of the given repository, read again only if it has changed on disk. */
+	static DirCache readDirCache(Repository repo) throws IOException {
+		Entry entry = entryOf(repo);
+		if (entry == null) {
+			return repo.readDirCache();
+		}
+		synchronized (entry) {
+			if (entry.closed) {
+				return repo.readDirCache();
+			}
+			if (entry.dirCache == null || entry.dirCache.isOutdated()) {
+				entry.dirCache = repo.readDirCache();
+			}
+			return entry.dirCache;
+		}
+	}
+
+	/** Returns the tree of the merge base of the given commits, computed once per pair of commits. */
+	static ObjectId mergeBaseTreeOf(Repository repo, ObjectId ratchetFrom, ObjectId head) throws IOException {
+		Entry entry = entryOf(repo);
+		if (entry == null) {
+			try (RevWalk revWalk = new RevWalk(repo)) {
+				return GitRatchet.mergeBaseTreeOf(revWalk, ratchetFrom, head);
+			}
+		}
+		synchronized (entry) {
+			if (entry.closed) {
+				try (RevWalk revWalk = new RevWalk(repo)) {
+					return GitRatchet.mergeBaseTreeOf(revWalk, ratchetFrom, head);
+				}
+			}
+			List<ObjectId> key = List.of(ratchetFrom.copy(), head.copy());
+			ObjectId treeSha = entry.mergeBaseTrees.get(key);
+			if (treeSha == null) {
+				// a RevWalk doesn't close a reader it was given
+				try (RevWalk revWalk = new RevWalk(entry.reader)) {
+					treeSha = GitRatchet.mergeBaseTreeOf(revWalk, ratchetFrom, head).copy();
+				}
+				entry.mergeBaseTrees.put(key, treeSha);
+			}
+			return treeSha;
+		}
+	}
+
+	private static @Nullable Entry entryOf(Repository repo) {
+		return BY_REPO.get(repo);
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2020-2025 DiffPlug
+ * Copyright 2020-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,8 +21,11 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Nullable;
 
+import org.eclipse.jgit.dircache.DirCache;
 import org.eclipse.jgit.errors.ConfigInvalidException;
 import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.StoredConfig;
 import org.eclipse.jgit.storage.file.FileBasedConfig;
 import org.eclipse.jgit.util.FS;
@@ -30,7 +33,7 @@ import org.eclipse.jgit.util.SystemReader;
 
 import com.diffplug.spotless.extra.GitRatchet;
 
-/** Gradle implementation of GitRatchet. */
+/** Gradle implementation of GitRatchet, whose repositories outlive the build in {@link GitRatchetDaemonCache}. */
 public class GitRatchetGradle extends GitRatchet<File> {
 	private static final String[] GIT_EXEC_CANDIDATES = {"git", "git.exe", "git.cmd"};
 
@@ -116,6 +119,21 @@ public class GitRatchetGradle extends GitRatchet<File> {
 		});
 	}
 
+	@Override
+	protected Repository openRepository(File gitDir) throws IOException {
+		return GitRatchetDaemonCache.open(gitDir);
+	}
+
+	@Override
+	protected DirCache readDirCache(Repository repo) throws IOException {
+		return GitRatchetDaemonCache.readDirCache(repo);
+	}
+
+	@Override
+	protected ObjectId mergeBaseTreeOf(Repository repo, ObjectId ratchetFrom, ObjectId head) throws IOException {
+		return GitRatchetDaemonCache.mergeBaseTreeOf(repo, ratchetFrom, head);
+	}
+
 	@Override
 	protected File getDir(File project) {
 		return project;
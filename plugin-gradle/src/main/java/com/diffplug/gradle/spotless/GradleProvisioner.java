@@ -22,6 +22,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nullable;
 
@@ -41,6 +44,7 @@ import org.slf4j.LoggerFactory;
 import com.diffplug.common.base.Unhandled;
 import com.diffplug.common.collect.ImmutableList;
 import com.diffplug.spotless.Provisioner;
+import com.diffplug.spotless.ThrowingEx;
 import com.diffplug.spotless.extra.P2ModelWrapper;
 import com.diffplug.spotless.extra.P2Provisioner;
 
@@ -201,7 +205,8 @@ final class GradleProvisioner {
 	}
 
 	static class DedupingP2Provisioner implements P2Provisioner {
-		private final Map<P2Request, List<File>> cache = new HashMap<>();
+		/** In-flight and finished requests, so identical models wait for one another while different ones run in parallel. */
+		private final Map<P2Request, CompletableFuture<List<File>>> cache = new ConcurrentHashMap<>();
 		private final P2Provisioner p2Provisioner;
 		@Nullable private final File defaultCacheDirectory;
 
@@ -215,49 +220,59 @@ final class GradleProvisioner {
 		}
 
 		@Override
-		public synchronized List<File> provisionP2Dependencies(
+		public List<File> provisionP2Dependencies(
 				P2ModelWrapper modelWrapper,
 				Provisioner mavenProvisioner,
 				@Nullable File cacheDirectory) throws IOException {
 
 			File effectiveCacheDirectory = effectiveCacheDirectory(cacheDirectory);
-			P2Request req = new P2Request(
-					List.copyOf(modelWrapper.getP2Repos()),
-					List.copyOf(modelWrapper.getInstallList()),
-					Set.copyOf(modelWrapper.getFilterNames()),
-					List.copyOf(modelWrapper.getPureMaven()),
-					modelWrapper.isUseMavenCentral(),
-					effectiveCacheDirectory);
-
-			List<File> result = cache.get(req);
-			if (result != null) {
+			P2Request req = request(modelWrapper, effectiveCacheDirectory);
+			CompletableFuture<List<File>> created = new CompletableFuture<>();
+			CompletableFuture<List<File>> existing = cache.putIfAbsent(req, created);
+			if (existing != null) {
+				return join(existing);
+			}
+			try {
+				List<File> result = List.copyOf(p2Provisioner.provisionP2Dependencies(modelWrapper, mavenProvisioner, effectiveCacheDirectory));
+				created.complete(result);
 				return result;
+			} catch (IOException | RuntimeException e) {
+				// don't remember failures, a later request may succeed (e.g. once online again)
+				cache.remove(req, created);
+				created.completeExceptionally(e);
+				throw e;
 			}
-
-			result = p2Provisioner.provisionP2Dependencies(modelWrapper, mavenProvisioner, effectiveCacheDirectory);
-			cache.put(req, List.copyOf(result));
-			return result;
 		}
 
 		/** A child P2Provisioner which retrieves cached elements only. */
 		final P2Provisioner cachedOnly = (modelWrapper, mavenProvisioner, cacheDirectory) -> {
-			File effectiveCacheDirectory = effectiveCacheDirectory(cacheDirectory);
-			P2Request req = new P2Request(
+			CompletableFuture<List<File>> result = cache.get(request(modelWrapper, effectiveCacheDirectory(cacheDirectory)));
+			if (result != null) {
+				return join(result);
+			}
+			throw new GradleException("P2 dependencies not predeclared. Add Eclipse formatter configuration to the `spotlessPredeclare` block in the root project.");
+		};
+
+		private static List<File> join(CompletableFuture<List<File>> future) throws IOException {
+			try {
+				return future.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof IOException ioException) {
+					throw ioException;
+				}
+				throw ThrowingEx.unwrapCause(e);
+			}
+		}
+
+		private static P2Request request(P2ModelWrapper modelWrapper, @Nullable File effectiveCacheDirectory) {
+			return new P2Request(
 					List.copyOf(modelWrapper.getP2Repos()),
 					List.copyOf(modelWrapper.getInstallList()),
 					Set.copyOf(modelWrapper.getFilterNames()),
 					List.copyOf(modelWrapper.getPureMaven()),
 					modelWrapper.isUseMavenCentral(),
 					effectiveCacheDirectory);
-			List<File> result;
-			synchronized (cache) {
-				result = cache.get(req);
-			}
-			if (result != null) {
-				return result;
-			}
-			throw new GradleException("P2 dependencies not predeclared. Add Eclipse formatter configuration to the `spotlessPredeclare` block in the root project.");
-		};
+		}
 
 		@Nullable private File effectiveCacheDirectory(@Nullable File cacheDirectory) {
 			return cacheDirectory != null ? cacheDirectory : defaultCacheDirectory;
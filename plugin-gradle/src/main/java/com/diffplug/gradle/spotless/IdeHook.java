@@ -31,6 +31,7 @@ import com.diffplug.common.io.ByteStreams;
 import com.diffplug.spotless.DirtyState;
 import com.diffplug.spotless.Formatter;
 import com.diffplug.spotless.NoLambda;
+import com.diffplug.spotless.SpotlessCache;
 
 final class IdeHook {
 	static class State extends NoLambda.EqualityBasedOnSerialization {
@@ -79,11 +80,13 @@ final class IdeHook {
 			}
 		}
 
-		var matchedFiles = files.stream().filter(file -> spotlessTask.getTarget().contains(file)).toList();
+		var matchedFiles = files.stream().filter(file -> spotlessTask.getConfiguredTarget().contains(file)).toList();
 		for (File file : matchedFiles) {
 			GitRatchetGradle ratchet = spotlessTask.getRatchet();
-			try (Formatter formatter = spotlessTask.buildFormatter()) {
+			try (SpotlessCache.InUse cacheInUse = SpotlessCache.markInUse();
+					Formatter formatter = spotlessTask.buildFormatter()) {
 				if (ratchet != null) {
+					// the IDE passes a few files, which are quicker to check one by one than with a walk over the project
 					if (ratchet.isClean(spotlessTask.getProjectDir().get().getAsFile(), spotlessTask.getRootTreeSha(), file)) {
 						dumpIsClean();
 						continue;
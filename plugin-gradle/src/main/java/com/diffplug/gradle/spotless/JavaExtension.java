@@ -475,6 +475,18 @@ public class JavaExtension extends FormatExtension implements HasBuiltinDelimite
 			return this;
 		}
 
+		/**
+		 * Provisions the formatter from the Maven coordinates listed in the given lockfile instead of
+		 * querying Eclipse P2 repositories, e.g. for air-gapped builds. The file lists one
+		 * {@code group:artifact:version} per line, lines starting with {@code #} are comments.
+		 */
+		public EclipseConfig lockfile(Object lockfile) {
+			Objects.requireNonNull(lockfile);
+			builder.setLockfile(getProject().file(lockfile));
+			replaceStep(builder.build());
+			return this;
+		}
+
 	}
 
 	/** Removes newlines between type annotations and types. */
@@ -17,10 +17,13 @@ package com.diffplug.gradle.spotless;
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.File;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Nullable;
 
@@ -41,6 +44,7 @@ public abstract class SpotlessExtension {
 	protected static final String CHECK_DESCRIPTION = "Checks that sourcecode satisfies formatting steps.";
 	protected static final String APPLY_DESCRIPTION = "Applies code formatting steps to sourcecode in-place.";
 	protected static final String INSTALL_GIT_PRE_PUSH_HOOK_DESCRIPTION = "Installs Spotless Git pre-push hook.";
+	protected static final String NPM_INSTALL_CACHE_GC_DESCRIPTION = "Removes files of the npm install caches which no cached node_modules uses anymore.";
 
 	static final String EXTENSION = "spotless";
 	static final String EXTENSION_PREDECLARE = "spotlessPredeclare";
@@ -48,12 +52,16 @@ public abstract class SpotlessExtension {
 	static final String APPLY = "Apply";
 	static final String DIAGNOSE = "Diagnose";
 	static final String INSTALL_GIT_PRE_PUSH_HOOK = "InstallGitPrePushHook";
+	static final String NPM_INSTALL_CACHE_GC = "NpmInstallCacheGc";
 
 	protected SpotlessExtension(Project project) {
 		this.project = requireNonNull(project);
 		this.spotlessTaskService = SpotlessTaskService.registerIfAbsent(project, "");
 	}
 
+	/** The {@code npmInstallCache} directories of the npm-based steps of this project, see {@link SpotlessNpmInstallCacheGcTask}. */
+	final Set<File> npmInstallCaches = new LinkedHashSet<>();
+
 	Provider<SpotlessTaskService> getSpotlessTaskService() {
 		return spotlessTaskService;
 	}
@@ -120,6 +128,45 @@ public abstract class SpotlessExtension {
 		setRatchetFrom(ratchetFrom);
 	}
 
+	boolean ratchetNarrowsTarget = false;
+
+	/** Returns {@code true} if {@code ratchetFrom} narrows the inputs of the Spotless tasks; {@code false} otherwise. */
+	public boolean isRatchetNarrowsTarget() {
+		return ratchetNarrowsTarget;
+	}
+
+	/**
+	 * If {@code true}, the inputs of each ratcheted Spotless task are only the files within its target which have
+	 * changed since {@code ratchetFrom} (modified, added or untracked), computed from git when the task runs,
+	 * rather than every file in the target. On large projects with few changes, this saves Gradle from
+	 * fingerprinting files which Spotless would skip anyway.
+	 * <p>
+	 * {@code false} by default.
+	 */
+	public void setRatchetNarrowsTarget(boolean ratchetNarrowsTarget) {
+		this.ratchetNarrowsTarget = ratchetNarrowsTarget;
+	}
+
+	boolean verifiedBlobCache = false;
+
+	/** Returns {@code true} if files which are already verified clean are remembered by their git blob; {@code false} otherwise. */
+	public boolean isVerifiedBlobCache() {
+		return verifiedBlobCache;
+	}
+
+	/**
+	 * If {@code true}, each Spotless task records the git blob of every file it finds clean, together with a
+	 * fingerprint of its steps, in the Gradle user home. A later run, in this or any other clone, then skips
+	 * every file whose content is what the git index has staged and whose blob has already been verified, without
+	 * formatting it. Files which git converts on checkout are always formatted, and blobs which haven't been
+	 * checked for 30 days are forgotten. This helps CI which keeps checking commits that contain mostly the same content.
+	 * <p>
+	 * {@code false} by default.
+	 */
+	public void setVerifiedBlobCache(boolean verifiedBlobCache) {
+		this.verifiedBlobCache = verifiedBlobCache;
+	}
+
 	final Map<String, FormatExtension> formats = new LinkedHashMap<>();
 
 	/** Configures the special java-specific extension. */
@@ -15,6 +15,10 @@
  */
 package com.diffplug.gradle.spotless;
 
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
 import org.gradle.api.Action;
 import org.gradle.api.Project;
 import org.gradle.api.plugins.BasePlugin;
@@ -27,6 +31,7 @@ public class SpotlessExtensionImpl extends SpotlessExtension {
 	final TaskProvider<?> rootApplyTask;
 	final TaskProvider<?> rootDiagnoseTask;
 	final TaskProvider<?> rootInstallPreHook;
+	final TaskProvider<?> rootNpmInstallCacheGc;
 
 	public SpotlessExtensionImpl(Project project) {
 		super(project);
@@ -45,6 +50,12 @@ public class SpotlessExtensionImpl extends SpotlessExtension {
 			task.getRootDir().set(project.getRootDir());
 			task.getIsRootExecution().set(project.equals(project.getRootProject()));
 		});
+		rootNpmInstallCacheGc = project.getTasks().register(EXTENSION + NPM_INSTALL_CACHE_GC, SpotlessNpmInstallCacheGcTask.class, task -> {
+			task.setGroup(BUILD_SETUP_TASK_GROUP);
+			task.setDescription(NPM_INSTALL_CACHE_GC_DESCRIPTION);
+			// the steps are created while the formats are configured, so this is evaluated afterwards
+			task.getCacheDirs().from((Callable<Set<File>>) () -> npmInstallCaches);
+		});
 
 		project.afterEvaluate(unused -> {
 			if (enforceCheck) {
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.gradle.spotless;
+
+import java.io.File;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.DisableCachingByDefault;
+
+import com.diffplug.spotless.npm.NodeModulesCachingNpmProcessFactory;
+
+/**
+ * Removes the files of the {@code npmInstallCache} directories of this project which are no longer used by any
+ * cached {@code node_modules}, e.g. after outdated entries of the cache have been deleted.
+ */
+@DisableCachingByDefault(because = "deletes files outside of the build")
+public abstract class SpotlessNpmInstallCacheGcTask extends DefaultTask {
+	/** The {@code npmInstallCache} directories of every npm-based step of this project. */
+	@Internal
+	abstract ConfigurableFileCollection getCacheDirs();
+
+	@TaskAction
+	public void performAction() {
+		for (File cacheDir : getCacheDirs().getFiles()) {
+			if (!cacheDir.isDirectory()) {
+				continue;
+			}
+			long freed = NodeModulesCachingNpmProcessFactory.create(cacheDir).collectGarbage();
+			getLogger().lifecycle("Removed {} bytes of unused files from {}", freed, cacheDir);
+		}
+	}
+}
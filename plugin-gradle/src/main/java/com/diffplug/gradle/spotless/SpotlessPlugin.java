@@ -15,6 +15,8 @@
  */
 package com.diffplug.gradle.spotless;
 
+import java.io.File;
+
 import org.gradle.api.GradleException;
 import org.gradle.api.JavaVersion;
 import org.gradle.api.Plugin;
@@ -22,8 +24,10 @@ import org.gradle.api.Project;
 import org.gradle.api.plugins.BasePlugin;
 import org.gradle.util.GradleVersion;
 
+import com.diffplug.spotless.FileSignature;
 import com.diffplug.spotless.Jvm;
 import com.diffplug.spotless.SpotlessCache;
+import com.diffplug.spotless.extra.GitAttributesLineEndings;
 
 public class SpotlessPlugin implements Plugin<Project> {
 	static final String SPOTLESS_MODERN = "spotlessModern";
@@ -45,6 +49,11 @@ public class SpotlessPlugin implements Plugin<Project> {
 		if (GradleCompat.isPropertyPresent(project, SPOTLESS_MODERN)) {
 			project.getLogger().warn("'spotlessModern' has no effect as of Spotless 5.0, recommend removing it.");
 		}
+		// lets a fresh daemon reuse the digests of jars signed by earlier builds
+		FileSignature.persistDigestsIn(new File(project.getGradle().getGradleUserHomeDir(), "caches/spotless-file-signatures"));
+		// and the line endings of unchanged repositories
+		GitAttributesLineEndings.persistEndingsIn(new File(project.getGradle().getGradleUserHomeDir(), "caches/spotless-line-endings"));
+
 		// make sure there's a `clean` and a `check`
 		project.getPlugins().apply(BasePlugin.class);
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2020-2025 DiffPlug
+ * Copyright 2020-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,16 +16,23 @@
 package com.diffplug.gradle.spotless;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
 
 import org.eclipse.jgit.lib.ObjectId;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.Input;
@@ -135,15 +142,72 @@ public abstract class SpotlessTask extends DefaultTask {
 		return lintSuppressions;
 	}
 
+	protected boolean ratchetNarrowsTarget;
+
+	@Input
+	public boolean isRatchetNarrowsTarget() {
+		return ratchetNarrowsTarget;
+	}
+
+	public void setRatchetNarrowsTarget(boolean ratchetNarrowsTarget) {
+		this.ratchetNarrowsTarget = ratchetNarrowsTarget;
+	}
+
+	protected @Nullable File verifiedBlobsDirectory;
+
+	/** Where the git blobs which are already verified clean are recorded, or null to not record them. */
+	@Internal
+	public @Nullable File getVerifiedBlobsDirectory() {
+		return verifiedBlobsDirectory;
+	}
+
+	public void setVerifiedBlobsDirectory(@Nullable File verifiedBlobsDirectory) {
+		this.verifiedBlobsDirectory = verifiedBlobsDirectory;
+	}
+
+	@Inject
+	protected abstract ObjectFactory getObjects();
+
 	protected FileCollection target;
+	/** The part of {@link #target} which is dirty against {@code ratchetFrom}, recomputed after the configuration cache is loaded. */
+	private transient FileCollection ratchetTarget;
 
+	/**
+	 * The files to format. If {@link #isRatchetNarrowsTarget()} and there is a ratchet, this is only the
+	 * part of the configured target which has changed since {@code ratchetFrom} (modified, added or untracked),
+	 * so that Gradle only fingerprints those files.
+	 */
 	@PathSensitive(PathSensitivity.RELATIVE)
 	@Incremental
 	@InputFiles
 	public FileCollection getTarget() {
+		if (!ratchetNarrowsTarget || target == null || getRatchet() == null) {
+			return target;
+		}
+		if (ratchetTarget == null) {
+			ratchetTarget = getObjects().fileCollection().from((Callable<List<File>>) this::ratchetDirtyTarget);
+		}
+		return ratchetTarget;
+	}
+
+	/** The configured target, regardless of {@link #isRatchetNarrowsTarget()}. */
+	@Internal
+	FileCollection getConfiguredTarget() {
 		return target;
 	}
 
+	private List<File> ratchetDirtyTarget() throws IOException {
+		GitRatchet.DirtyFiles dirtyFiles = getRatchet().dirtyFilesOf(getProjectDir().get().getAsFile(), getRootTreeSha());
+		List<File> files = new ArrayList<>();
+		for (File file : dirtyFiles.files()) {
+			if (file.isFile() && target.contains(file)) {
+				files.add(file);
+			}
+		}
+		Collections.sort(files);
+		return files;
+	}
+
 	public void setTarget(Iterable<File> target) {
 		if (target instanceof FileCollection) {
 			this.target = (FileCollection) target;
@@ -176,11 +240,17 @@ public abstract class SpotlessTask extends DefaultTask {
 		return stepsInternalRoundtrip;
 	}
 
-	@Input
+	@Internal
 	public ConfigurationCacheHackList getStepsInternalEquality() {
 		return stepsInternalEquality;
 	}
 
+	/** A compact stand-in for {@link #getStepsInternalEquality()}, so Gradle doesn't fingerprint every step's full state. */
+	@Input
+	public List<String> getStepsInternalFingerprints() {
+		return stepsInternalEquality.fingerprints();
+	}
+
 	public void setSteps(List<FormatterStep> steps) {
 		PluginGradlePreconditions.requireElementsNonNull(steps);
 		this.stepsInternalRoundtrip.clear();
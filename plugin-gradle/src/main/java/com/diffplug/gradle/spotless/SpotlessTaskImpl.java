@@ -20,12 +20,14 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
+import org.eclipse.jgit.lib.ObjectId;
 import org.gradle.api.GradleException;
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.FileSystemOperations;
@@ -46,7 +48,9 @@ import com.diffplug.spotless.Formatter;
 import com.diffplug.spotless.Lint;
 import com.diffplug.spotless.LintState;
 import com.diffplug.spotless.LintSuppression;
+import com.diffplug.spotless.SpotlessCache;
 import com.diffplug.spotless.extra.GitRatchet;
+import com.diffplug.spotless.extra.GitVerifiedBlobs;
 
 @CacheableTask
 public abstract class SpotlessTaskImpl extends SpotlessTask {
@@ -98,9 +102,19 @@ public abstract class SpotlessTaskImpl extends SpotlessTask {
 			Files.createDirectories(lintsDirectory.toPath());
 		}
 
-		try (Formatter formatter = buildFormatter()) {
-			GitRatchetGradle ratchet = getRatchet();
-			for (FileChange fileChange : inputs.getFileChanges(target)) {
+		try (SpotlessCache.InUse cacheInUse = SpotlessCache.markInUse();
+				Formatter formatter = buildFormatter()) {
+			// equal steps of other tasks in this build hand over their warm formatter functions
+			formatter.shareFormatterFuncs(taskService.getFormatterFuncs());
+			// slow steps (e.g. npm-based ones) start once there is a file to check, while the clean files are skipped
+			boolean stepsStarted = false;
+			List<FileChange> fileChanges = new ArrayList<>();
+			inputs.getFileChanges(getTarget()).forEach(fileChanges::add);
+			// a narrowed target only contains dirty files, so they don't need to be checked again
+			GitRatchetGradle ratchet = isRatchetNarrowsTarget() ? null : getRatchet();
+			RatchetCheck ratchetCheck = ratchet == null ? null : new RatchetCheck(ratchet, !inputs.isIncremental() || fileChanges.size() > RATCHET_CHECK_PER_FILE_MAX);
+			VerifiedBlobs verifiedBlobs = verifiedBlobsDirectory == null ? null : new VerifiedBlobs(formatter);
+			for (FileChange fileChange : fileChanges) {
 				File input = fileChange.getFile();
 				File projectDir = getProjectDir().get().getAsFile();
 				String relativePath = LintSuppression.relativizeAsUnix(projectDir, input);
@@ -116,26 +130,121 @@ public abstract class SpotlessTaskImpl extends SpotlessTask {
 					deletePreviousResults(lintsDirectory, relativePath);
 				} else {
 					if (input.isFile()) {
-						processInputFile(ratchet, formatter, input, relativePath);
+						if (!stepsStarted) {
+							formatter.startStepsInBackground();
+							stepsStarted = true;
+						}
+						processInputFile(ratchetCheck, verifiedBlobs, formatter, input, relativePath);
 					}
 				}
 			}
+			if (verifiedBlobs != null) {
+				verifiedBlobs.record.save();
+			}
+		}
+	}
+
+	/**
+	 * Up to this many changed files are checked against the ratchet one by one, since each check only walks the
+	 * file's own path, and more than that with one walk over the whole project.
+	 */
+	private static final int RATCHET_CHECK_PER_FILE_MAX = 50;
+
+	/** Whether files are clean relative to the ratchet. */
+	private final class RatchetCheck {
+		final GitRatchetGradle ratchet;
+		final boolean walkWholeProject;
+		/** Computed by one walk over the whole project once the first file needs it, if {@link #walkWholeProject}. */
+		@Nullable GitRatchet.DirtyFiles dirtyFiles;
+
+		RatchetCheck(GitRatchetGradle ratchet, boolean walkWholeProject) {
+			this.ratchet = ratchet;
+			this.walkWholeProject = walkWholeProject;
+		}
+
+		boolean isClean(File input) throws IOException {
+			File projectDir = getProjectDir().get().getAsFile();
+			if (!walkWholeProject) {
+				return ratchet.isClean(projectDir, getRootTreeSha(), input);
+			}
+			if (dirtyFiles == null) {
+				dirtyFiles = ratchet.dirtyFilesOf(projectDir, getRootTreeSha());
+			}
+			return dirtyFiles.isClean(input);
+		}
+	}
+
+	/** The blobs which are already verified clean, see {@link SpotlessExtension#setVerifiedBlobCache(boolean)}. */
+	private final class VerifiedBlobs {
+		final GitVerifiedBlobs record;
+		/** Computed by one walk over the index and worktree once the first file needs it, null outside of git. */
+		@Nullable GitRatchet.IndexBlobs indexBlobs;
+		boolean isGitRepository = true;
+
+		VerifiedBlobs(Formatter formatter) {
+			// the line ending and path are part of each entry, everything else the result depends on is here
+			List<String> fingerprint = new ArrayList<>();
+			fingerprint.add(formatter.getEncoding().name());
+			fingerprint.addAll(getStepsInternalFingerprints());
+			record = GitVerifiedBlobs.load(verifiedBlobsDirectory, String.join("\n", fingerprint));
+		}
+
+		@Nullable ObjectId blobOf(File input) throws IOException {
+			if (indexBlobs == null && isGitRepository) {
+				File projectDir = getProjectDir().get().getAsFile();
+				GitRatchetGradle ratchet = getTaskService().get().getRatchet();
+				if (ratchet.isInRepository(projectDir)) {
+					indexBlobs = ratchet.indexBlobsOf(projectDir);
+				} else {
+					isGitRepository = false;
+				}
+			}
+			return indexBlobs == null ? null : indexBlobs.blobOf(input);
 		}
 	}
 
 	@VisibleForTesting
-	void processInputFile(@Nullable GitRatchet ratchet, Formatter formatter, File input, String relativePath) throws IOException {
+	void processInputFile(@Nullable GitRatchetGradle ratchet, Formatter formatter, File input, String relativePath) throws IOException {
+		processInputFile(ratchet == null ? null : new RatchetCheck(ratchet, false), null, formatter, input, relativePath);
+	}
+
+	private void processInputFile(@Nullable RatchetCheck ratchetCheck, @Nullable VerifiedBlobs verifiedBlobs, Formatter formatter, File input, String relativePath) throws IOException {
 		File cleanFile = new File(cleanDirectory, relativePath);
 		File lintFile = new File(lintsDirectory, relativePath);
 		getLogger().debug("Applying format to {} and writing to {}", input, cleanFile);
 		LintState lintState;
-		if (ratchet != null && ratchet.isClean(getProjectDir().get().getAsFile(), getRootTreeSha(), input)) {
+		ObjectId blob = null;
+		byte[] content = null;
+		String lineEnding = null;
+		if (ratchetCheck != null && ratchetCheck.isClean(input)) {
 			lintState = LintState.clean();
 		} else {
-			try {
-				lintState = LintState.of(formatter, input).withRemovedSuppressions(formatter, relativePath, getLintSuppressions());
-			} catch (Throwable e) {
-				throw new IllegalArgumentException("Issue processing file: " + input, e);
+			if (verifiedBlobs != null) {
+				blob = verifiedBlobs.blobOf(input);
+				if (blob != null) {
+					content = Files.readAllBytes(input.toPath());
+					// git may have converted the blob on checkout, in which case these aren't the bytes which were verified
+					if (GitVerifiedBlobs.isContentOf(blob, content)) {
+						lineEnding = formatter.getLineEndingsPolicy().getEndingFor(input, content);
+					} else {
+						blob = null;
+					}
+				}
+			}
+			if (blob != null && verifiedBlobs.record.isVerified(blob, relativePath, lineEnding)) {
+				lintState = LintState.clean();
+			} else {
+				LintState unsuppressed;
+				try {
+					unsuppressed = content == null ? LintState.of(formatter, input) : LintState.of(formatter, input, content);
+					lintState = unsuppressed.withRemovedSuppressions(formatter, relativePath, getLintSuppressions());
+				} catch (Throwable e) {
+					throw new IllegalArgumentException("Issue processing file: " + input, e);
+				}
+				// only what is clean regardless of the lint suppressions, which aren't part of the record
+				if (blob != null && unsuppressed.getDirtyState().isClean() && !unsuppressed.isHasLints()) {
+					verifiedBlobs.record.verified(blob, relativePath, lineEnding);
+				}
 			}
 		}
 		if (lintState.getDirtyState().isClean()) {
@@ -45,8 +45,10 @@ import org.gradle.tooling.events.OperationCompletionListener;
 
 import com.diffplug.common.base.Preconditions;
 import com.diffplug.common.base.Unhandled;
+import com.diffplug.spotless.FormatterFuncRegistry;
 import com.diffplug.spotless.Lint;
 import com.diffplug.spotless.Provisioner;
+import com.diffplug.spotless.SpotlessCache;
 import com.diffplug.spotless.extra.P2Provisioner;
 
 /**
@@ -132,10 +134,23 @@ public abstract class SpotlessTaskService implements BuildService<BuildServicePa
 
 	@Override
 	public void close() throws Exception {
-		ratchet.close();
+		try {
+			formatterFuncs.close();
+			// the build is over and its formatter functions are closed, so no classloader is referenced anymore
+			SpotlessCache.evictUnused();
+		} finally {
+			ratchet.close();
+		}
 	}
 	// </GitRatchet>
 
+	/** Formatter functions shared by equal steps of all the tasks in this build, closed at the end of the build. */
+	private final FormatterFuncRegistry formatterFuncs = new FormatterFuncRegistry();
+
+	FormatterFuncRegistry getFormatterFuncs() {
+		return formatterFuncs;
+	}
+
 	static String INDEPENDENT_HELPER = "Helper";
 
 	static void usesServiceTolerateTestFailure(DefaultTask task, Provider<SpotlessTaskService> serviceProvider) {
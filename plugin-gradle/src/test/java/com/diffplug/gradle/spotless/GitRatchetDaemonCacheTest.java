@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.gradle.spotless;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+
+import com.diffplug.spotless.ClearGitConfig;
+import com.diffplug.spotless.ResourceHarness;
+
+@ClearGitConfig
+class GitRatchetDaemonCacheTest extends ResourceHarness {
+	@Test
+	void rewrittenIndexIsPickedUpByTheNextBuild() throws IOException, GitAPIException {
+		try (Git git = Git.init().setDirectory(rootFolder()).call()) {
+			setFile("a.txt").toContent("before");
+			git.add().addFilepattern(".").call();
+			git.commit().setMessage("init").call();
+			try (GitRatchetGradle build = new GitRatchetGradle()) {
+				assertThat(build.indexBlobsOf(rootFolder()).blobOf(newFile("a.txt"))).isEqualTo(blobOf("before"));
+			}
+
+			setFile("a.txt").toContent("after");
+			git.add().addFilepattern("a.txt").call();
+			try (GitRatchetGradle build = new GitRatchetGradle()) {
+				assertThat(build.indexBlobsOf(rootFolder()).blobOf(newFile("a.txt"))).isEqualTo(blobOf("after"));
+			}
+		}
+	}
+
+	@Test
+	void movedHeadIsPickedUpByTheNextBuild() throws IOException, GitAPIException {
+		try (Git git = Git.init().setDirectory(rootFolder()).call()) {
+			setFile("a.txt").toContent("before");
+			git.add().addFilepattern(".").call();
+			RevCommit first = git.commit().setMessage("first").call();
+			try (GitRatchetGradle build = new GitRatchetGradle()) {
+				assertThat(build.rootTreeShaOf(rootFolder(), Constants.HEAD)).isEqualTo(first.getTree().getId());
+			}
+
+			setFile("a.txt").toContent("after");
+			git.add().addFilepattern(".").call();
+			RevCommit second = git.commit().setMessage("second").call();
+			try (GitRatchetGradle build = new GitRatchetGradle()) {
+				assertThat(build.rootTreeShaOf(rootFolder(), Constants.HEAD)).isEqualTo(second.getTree().getId());
+				assertThat(build.isClean(rootFolder(), second.getTree().getId(), newFile("a.txt"))).isTrue();
+			}
+		}
+	}
+
+	@Test
+	void idleRepositoriesAreClosed() throws IOException, GitAPIException {
+		try (Git git = Git.init().setDirectory(rootFolder()).call()) {
+			setFile("a.txt").toContent("content");
+			git.add().addFilepattern(".").call();
+			RevCommit commit = git.commit().setMessage("init").call();
+			try (GitRatchetGradle build = new GitRatchetGradle()) {
+				build.rootTreeShaOf(rootFolder(), Constants.HEAD);
+				assertThat(GitRatchetDaemonCache.size()).isPositive();
+			}
+
+			GitRatchetDaemonCache.evict(System.nanoTime() + GitRatchetDaemonCache.MAX_IDLE_NANOS);
+			assertThat(GitRatchetDaemonCache.size()).isZero();
+
+			// and opened again by the next build
+			try (GitRatchetGradle build = new GitRatchetGradle()) {
+				assertThat(build.rootTreeShaOf(rootFolder(), Constants.HEAD)).isEqualTo(commit.getTree().getId());
+			}
+		}
+	}
+
+	private static ObjectId blobOf(String content) {
+		try (ObjectInserter.Formatter formatter = new ObjectInserter.Formatter()) {
+			return formatter.idFor(Constants.OBJ_BLOB, content.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+}
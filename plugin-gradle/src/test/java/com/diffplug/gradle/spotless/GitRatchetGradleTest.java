@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2025 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,6 +33,7 @@ import org.eclipse.jgit.treewalk.TreeWalk;
 import org.gradle.testkit.runner.BuildResult;
 import org.gradle.testkit.runner.GradleRunner;
 import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
@@ -60,6 +61,15 @@ class GitRatchetGradleTest extends GradleIntegrationHarness {
 	//@ValueSource(ints = {0, 1}) // TODO: this is a flaky configuration cache issue that started with Gradle 8.5
 	@ValueSource(ints = 0)
 	void singleProjectExhaustive(int useConfigCache) throws Exception {
+		singleProjectExhaustive(useConfigCache, false);
+	}
+
+	@Test
+	void singleProjectExhaustiveNarrowedTarget() throws Exception {
+		singleProjectExhaustive(0, true);
+	}
+
+	private void singleProjectExhaustive(int useConfigCache, boolean ratchetNarrowsTarget) throws Exception {
 		try (Git git = initRepo()) {
 			if (useConfigCache == 1) {
 				setFile("gradle.properties").toContent("org.gradle.unsafe.configuration-cache=true");
@@ -70,6 +80,7 @@ class GitRatchetGradleTest extends GradleIntegrationHarness {
 					"}",
 					"spotless {",
 					"  ratchetFrom 'baseline'",
+					"  ratchetNarrowsTarget = " + ratchetNarrowsTarget,
 					"  format 'misc', {",
 					"    target 'src/markdown/*.md'",
 					"    custom 'lowercase', { str -> str.toLowerCase() }",
@@ -136,6 +147,41 @@ class GitRatchetGradleTest extends GradleIntegrationHarness {
 		}
 	}
 
+	@Test
+	void verifiedBlobCacheSkipsVerifiedFilesUntilTheStepsChange() throws Exception {
+		try (Git git = initRepo()) {
+			setVerifiedBlobCacheBuild("toLowerCase", 1);
+			setFile(TEST_PATH).toContent("hello");
+			git.add().addFilepattern(TEST_PATH).call();
+			git.commit().setMessage("Initial state").call();
+			// verifies the blob of test.md
+			assertClean();
+
+			// with the same bump number the steps look unchanged, so the verified blob isn't formatted again
+			setVerifiedBlobCacheBuild("toUpperCase", 1);
+			gradleRunner().withArguments("spotlessCheck", "--rerun-tasks").build();
+
+			// but changed steps check it again
+			setVerifiedBlobCacheBuild("toUpperCase", 2);
+			assertDirty();
+		}
+	}
+
+	private void setVerifiedBlobCacheBuild(String customCase, int bumpNumber) throws IOException {
+		setFile("build.gradle").toLines(
+				"plugins {",
+				"  id 'com.diffplug.spotless'",
+				"}",
+				"spotless {",
+				"  verifiedBlobCache = true",
+				"  format 'misc', {",
+				"    target 'src/markdown/*.md'",
+				"    custom 'case', { str -> str." + customCase + "() }",
+				"    bumpThisNumberIfACustomStepChanges(" + bumpNumber + ")",
+				"  }",
+				"}");
+	}
+
 	private void assertClean() throws Exception {
 		gradleRunner().withArguments("spotlessCheck").build();
 	}
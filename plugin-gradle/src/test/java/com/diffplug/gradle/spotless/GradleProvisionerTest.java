@@ -22,6 +22,9 @@ import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
@@ -37,6 +40,7 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import com.diffplug.spotless.Provisioner;
+import com.diffplug.spotless.ThrowingEx;
 import com.diffplug.spotless.extra.P2ModelWrapper;
 import com.diffplug.spotless.extra.P2Provisioner;
 
@@ -263,6 +267,44 @@ class GradleProvisionerTest {
 			assertThat(result).isNotEmpty();
 		}
 
+		@Test
+		void differentModelsProvisionInParallel() throws Exception {
+			CountDownLatch bothStarted = new CountDownLatch(2);
+			P2Provisioner underlying = (modelWrapper, mavenProvisioner, cacheDirectory) -> {
+				bothStarted.countDown();
+				try {
+					// only returns if the other model is being provisioned at the same time
+					if (!bothStarted.await(10, TimeUnit.SECONDS)) {
+						throw new IOException("P2 provisioning was serialized");
+					}
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+				return List.of(new File("/mock/" + modelWrapper.getInstallList() + ".jar"));
+			};
+			GradleProvisioner.DedupingP2Provisioner deduping = new GradleProvisioner.DedupingP2Provisioner(underlying);
+
+			P2ModelWrapper jdt = createMockModel(
+					List.of("https://download.eclipse.org/eclipse/updates/4.26/"),
+					List.of("org.eclipse.jdt.core"),
+					Set.of(),
+					List.of(),
+					true,
+					null);
+			P2ModelWrapper cdt = createMockModel(
+					List.of("https://download.eclipse.org/tools/cdt/releases/11.0/"),
+					List.of("org.eclipse.cdt.core"),
+					Set.of(),
+					List.of(),
+					true,
+					null);
+
+			CompletableFuture<List<File>> jdtResult = CompletableFuture.supplyAsync(() -> ThrowingEx.get(() -> deduping.provisionP2Dependencies(jdt, mockProvisioner(), null)));
+			List<File> cdtResult = deduping.provisionP2Dependencies(cdt, mockProvisioner(), null);
+
+			assertThat(jdtResult.get(15, TimeUnit.SECONDS)).isNotEqualTo(cdtResult);
+		}
+
 		@Test
 		void defaultCacheDirectoryUsedWhenNoOverride() throws IOException {
 			AtomicReference<File> capturedCacheDirectory = new AtomicReference<>();
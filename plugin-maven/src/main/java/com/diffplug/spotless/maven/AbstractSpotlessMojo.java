@@ -55,12 +55,15 @@ import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.sonatype.plexus.build.incremental.BuildContext;
 
+import com.diffplug.spotless.FileSignature;
 import com.diffplug.spotless.Formatter;
 import com.diffplug.spotless.Jvm;
 import com.diffplug.spotless.LineEnding;
 import com.diffplug.spotless.LintState;
 import com.diffplug.spotless.LintSuppression;
 import com.diffplug.spotless.Provisioner;
+import com.diffplug.spotless.SpotlessCache;
+import com.diffplug.spotless.extra.GitAttributesLineEndings;
 import com.diffplug.spotless.extra.P2Provisioner;
 import com.diffplug.spotless.maven.antlr4.Antlr4;
 import com.diffplug.spotless.maven.asciidoc.Asciidoc;
@@ -101,6 +104,7 @@ public abstract class AbstractSpotlessMojo extends AbstractMojo {
 	static final String GOAL_CHECK = "check";
 	static final String GOAL_APPLY = "apply";
 	static final String GOAL_PRE_PUSH_HOOK = "install-git-pre-push-hook";
+	static final String GOAL_NPM_INSTALL_CACHE_GC = "npm-install-cache-gc";
 
 	@Component
 	private RepositorySystem repositorySystem;
@@ -270,6 +274,11 @@ public abstract class AbstractSpotlessMojo extends AbstractMojo {
 			return;
 		}
 
+		// lets a fresh Maven JVM reuse the digests of jars signed by earlier builds
+		FileSignature.persistDigestsIn(new File(repositorySystemSession.getLocalRepository().getBasedir(), ".cache/spotless/file-signatures"));
+		// and the line endings of unchanged repositories
+		GitAttributesLineEndings.persistEndingsIn(new File(repositorySystemSession.getLocalRepository().getBasedir(), ".cache/spotless/line-endings"));
+
 		List<FormatterFactory> formatterFactories = getFormatterFactories();
 		FormatterConfig config = getFormatterConfig();
 
@@ -279,12 +288,22 @@ public abstract class AbstractSpotlessMojo extends AbstractMojo {
 			formatterFactoryToFiles.put(formatterFactory, filesToFormat);
 		}
 
-		try (FormattersHolder formattersHolder = FormattersHolder.create(formatterFactoryToFiles, config);
+		try (SpotlessCache.InUse cacheInUse = SpotlessCache.markInUse();
+				FormattersHolder formattersHolder = FormattersHolder.create(formatterFactoryToFiles, config);
 				UpToDateChecker upToDateChecker = createUpToDateChecker(formattersHolder.openFormatters.values())) {
+			Map<FormatterFactory, List<File>> factoryToFiles = new LinkedHashMap<>();
 			for (FormatterFactory factory : formattersHolder.openFormatters.keySet()) {
-				Formatter formatter = formattersHolder.openFormatters.get(factory);
-				Iterable<File> files = formattersHolder.factoryToFiles.get(factory).get();
-				process(formattersHolder.nameFor(factory), files, formatter, upToDateChecker);
+				List<File> files = new ArrayList<>();
+				formattersHolder.factoryToFiles.get(factory).get().forEach(files::add);
+				factoryToFiles.put(factory, files);
+				// slow steps (e.g. npm-based ones) of formats with work to do start while earlier formats are processed
+				if (files.stream().anyMatch(file -> !upToDateChecker.isUpToDate(file.toPath()))) {
+					formattersHolder.openFormatters.get(factory).startStepsInBackground();
+				}
+			}
+			for (Map.Entry<FormatterFactory, List<File>> entry : factoryToFiles.entrySet()) {
+				Formatter formatter = formattersHolder.openFormatters.get(entry.getKey());
+				process(formattersHolder.nameFor(entry.getKey()), entry.getValue(), formatter, upToDateChecker);
 			}
 		} catch (PluginException e) {
 			throw e.asMojoExecutionException();
@@ -345,7 +364,7 @@ public abstract class AbstractSpotlessMojo extends AbstractMojo {
 		MatchPatterns excludePatterns = MatchPatterns.from(
 				withNormalizedFileSeparators(getExcludes(formatterFactory)));
 
-		Iterable<String> dirtyFiles;
+		List<GitRatchetMaven.DirtyFile> dirtyFiles;
 		try {
 			dirtyFiles = GitRatchetMaven
 					.instance().getDirtyFiles(baseDir, ratchetFrom);
@@ -354,10 +373,10 @@ public abstract class AbstractSpotlessMojo extends AbstractMojo {
 		}
 
 		List<File> result = new ArrayList<>();
-		for (String file : withNormalizedFileSeparators(dirtyFiles)) {
-			if (includePatterns.matches(file, true)) {
-				if (!excludePatterns.matches(file, true)) {
-					result.add(new File(baseDir.getPath(), file));
+		for (GitRatchetMaven.DirtyFile file : dirtyFiles) {
+			if (includePatterns.matches(file.path(), file.tokenized(), true)) {
+				if (!excludePatterns.matches(file.path(), file.tokenized(), true)) {
+					result.add(new File(baseDir.getPath(), file.path()));
 				}
 			}
 		}
@@ -402,7 +421,8 @@ public abstract class AbstractSpotlessMojo extends AbstractMojo {
 
 	private FormatterConfig getFormatterConfig() {
 		ArtifactResolver resolver = new ArtifactResolver(repositorySystem, repositorySystemSession, repositories, getLog());
-		Provisioner provisioner = MavenProvisioner.create(resolver);
+		Provisioner provisioner = MavenProvisioner.create(resolver,
+				new File(repositorySystemSession.getLocalRepository().getBasedir(), ".cache/spotless/provisioned"));
 		P2Provisioner p2Provisioner = P2Provisioner.createDefault();
 		List<FormatterStepFactory> formatterStepFactories = getFormatterStepFactories();
 		FileLocator fileLocator = getFileLocator();
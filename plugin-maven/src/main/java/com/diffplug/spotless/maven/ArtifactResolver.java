@@ -119,6 +119,15 @@ public class ArtifactResolver {
 				.collect(toSet());
 	}
 
+	/** Describes the remote repositories which {@link #resolve} uses. */
+	String repositoryFingerprint() {
+		StringBuilder fingerprint = new StringBuilder();
+		for (RemoteRepository repository : repositories) {
+			fingerprint.append(repository.getId()).append(' ').append(repository.getUrl()).append('\n');
+		}
+		return fingerprint.toString();
+	}
+
 	private void logResolved(ArtifactResult artifactResult) {
 		if (log.isDebugEnabled()) {
 			log.debug("Resolved artifact: " + artifactResult);
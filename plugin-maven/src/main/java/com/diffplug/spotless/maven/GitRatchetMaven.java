@@ -18,24 +18,30 @@ package com.diffplug.spotless.maven;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.plexus.util.MatchPattern;
 
 import org.eclipse.jgit.lib.IndexDiff;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.treewalk.FileTreeIterator;
 
+import com.diffplug.spotless.FileSignature;
 import com.diffplug.spotless.extra.GitRatchet;
 
 final class GitRatchetMaven extends GitRatchet<File> {
 
-	Map<Key, Set<String>> cache = new HashMap<>();
+	final Map<Key, DirtyPaths> cache = new ConcurrentHashMap<>();
 
 	private GitRatchetMaven() {}
 
@@ -62,25 +68,52 @@ final class GitRatchetMaven extends GitRatchet<File> {
 		return instance;
 	}
 
-	List<String> getDirtyFiles(File baseDir, String ratchetFrom) throws IOException {
+	/**
+	 * Returns the files within {@code baseDir} which aren't clean relative to {@code ratchetFrom}, relative to
+	 * {@code baseDir}. The dirty paths of a repository are computed once per ref for the whole reactor, and the files
+	 * of a module once for all of its formats.
+	 */
+	List<DirtyFile> getDirtyFiles(File baseDir, String ratchetFrom) throws IOException {
 		Repository repository = repositoryFor(baseDir);
-		Set<String> dirtyPaths = null;
 		Key key = new Key(repository.getIdentifier(), ratchetFrom);
-		synchronized (this) {
-			if (cache.containsKey(key)) {
-				dirtyPaths = cache.get(key);
-			} else {
-				dirtyPaths = getDirtyFilesInternal(repository, baseDir, ratchetFrom);
-				cache.put(key, dirtyPaths);
-			}
+		// computed once per repository and ref, every other module only reads it
+		DirtyPaths dirtyPaths = computeOnce(cache, key, k -> new DirtyPaths(repository.getWorkTree(), getDirtyFilesInternal(repository, baseDir, ratchetFrom)));
+		return dirtyPaths.within(baseDir);
+	}
+
+	/** A dirty file relative to its module, with native separators, and tokenized once for every format's patterns. */
+	record DirtyFile(String path, String[] tokenized) {}
+
+	/**
+	 * The dirty paths of a repository, relative to its worktree. They are sorted, so that the paths within a folder
+	 * are a contiguous range, and each module only visits its own.
+	 */
+	static final class DirtyPaths {
+		private final Path workTree;
+		private final NavigableSet<String> paths;
+		private final Map<File, List<DirtyFile>> byModule = new ConcurrentHashMap<>();
+
+		DirtyPaths(File workTree, Set<String> paths) {
+			this.workTree = workTree.toPath();
+			this.paths = Collections.unmodifiableNavigableSet(new TreeSet<>(paths));
 		}
 
-		Path baseDirPath = Path.of(baseDir.getPath());
-		String workTreePath = repository.getWorkTree().getPath();
+		List<DirtyFile> within(File baseDir) {
+			return byModule.computeIfAbsent(baseDir, this::computeWithin);
+		}
 
-		return dirtyPaths.stream()
-				.map(path -> baseDirPath.relativize(Path.of(workTreePath, path)).toString())
-				.collect(Collectors.toList());
+		private List<DirtyFile> computeWithin(File baseDir) {
+			String subpath = FileSignature.pathNativeToUnix(workTree.relativize(baseDir.toPath()).toString());
+			String prefix = subpath.isEmpty() ? "" : subpath + '/';
+			// every path which starts with "sub/" sorts between it and "sub0", since '0' is the char after '/'
+			Set<String> range = prefix.isEmpty() ? paths : paths.subSet(prefix, true, subpath + (char) ('/' + 1), false);
+			List<DirtyFile> files = new ArrayList<>(range.size());
+			for (String path : range) {
+				String relative = path.substring(prefix.length()).replace('/', File.separatorChar);
+				files.add(new DirtyFile(relative, MatchPattern.tokenizePathToString(relative, File.separator)));
+			}
+			return Collections.unmodifiableList(files);
+		}
 	}
 
 	Set<String> getDirtyFilesInternal(Repository repository, File baseDir, String ratchetFrom) throws IOException {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2025 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,6 +15,9 @@
  */
 package com.diffplug.spotless.maven;
 
+import java.io.File;
+
+import com.diffplug.spotless.PersistentProvisioner;
 import com.diffplug.spotless.Provisioner;
 
 /** Maven integration for Provisioner. */
@@ -24,4 +27,9 @@ public final class MavenProvisioner {
 	public static Provisioner create(ArtifactResolver artifactResolver) {
 		return artifactResolver::resolve;
 	}
+
+	/** Same as {@link #create(ArtifactResolver)}, but remembers resolved artifacts in {@code cacheDir} across builds and modules. */
+	public static Provisioner create(ArtifactResolver artifactResolver, File cacheDir) {
+		return PersistentProvisioner.wrap(create(artifactResolver), cacheDir, artifactResolver::repositoryFingerprint);
+	}
 }
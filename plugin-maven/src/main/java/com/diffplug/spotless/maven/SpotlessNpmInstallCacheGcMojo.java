@@ -0,0 +1,52 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless.maven;
+
+import java.io.File;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import com.diffplug.spotless.maven.npm.AbstractNpmFormatterStepFactory;
+import com.diffplug.spotless.npm.NodeModulesCachingNpmProcessFactory;
+
+/**
+ * Removes the files of an {@code npmInstallCache} directory which are no longer used by any cached
+ * {@code node_modules}, e.g. after outdated entries of the cache have been deleted.
+ */
+@Mojo(name = AbstractSpotlessMojo.GOAL_NPM_INSTALL_CACHE_GC, threadSafe = true)
+public class SpotlessNpmInstallCacheGcMojo extends AbstractMojo {
+
+	/** The cache directory, the default is the one of {@code <npmInstallCache>true</npmInstallCache>}. */
+	@Parameter(property = "spotless.npmInstallCache", defaultValue = "${project.build.directory}/" + AbstractNpmFormatterStepFactory.SPOTLESS_NPM_INSTALL_CACHE_DEFAULT_NAME)
+	private File npmInstallCache;
+
+	@Override
+	public void execute() throws MojoExecutionException {
+		if (!npmInstallCache.isDirectory()) {
+			getLog().info("No npm install cache at " + npmInstallCache);
+			return;
+		}
+		try {
+			long freed = NodeModulesCachingNpmProcessFactory.create(npmInstallCache).collectGarbage();
+			getLog().info("Removed " + freed + " bytes of unused files from " + npmInstallCache);
+		} catch (RuntimeException e) {
+			throw new MojoExecutionException("Unable to collect garbage in " + npmInstallCache, e);
+		}
+	}
+}
@@ -44,6 +44,9 @@ public class EclipseCdt implements FormatterStepFactory {
 	@Parameter
 	private File cacheDirectory;
 
+	@Parameter
+	private String lockfile;
+
 	@Override
 	public FormatterStep newFormatterStep(FormatterStepConfig stepConfig) {
 		EquoBasedStepBuilder eclipseConfig = EclipseCdtFormatterStep.createBuilder(stepConfig.getProvisioner(), stepConfig.getP2Provisioner());
@@ -56,6 +59,9 @@ public class EclipseCdt implements FormatterStepFactory {
 		if (cacheDirectory != null) {
 			eclipseConfig.setCacheDirectory(cacheDirectory);
 		}
+		if (lockfile != null) {
+			eclipseConfig.setLockfile(stepConfig.getFileLocator().locateFile(lockfile));
+		}
 		return eclipseConfig.build();
 	}
 
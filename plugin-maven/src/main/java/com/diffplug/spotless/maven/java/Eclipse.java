@@ -58,6 +58,9 @@ public class Eclipse implements FormatterStepFactory {
 	@Parameter
 	private File cacheDirectory;
 
+	@Parameter
+	private String lockfile;
+
 	@Override
 	public FormatterStep newFormatterStep(FormatterStepConfig stepConfig) {
 		EclipseJdtFormatterStep.Builder eclipseConfig = EclipseJdtFormatterStep.createBuilder(stepConfig.getProvisioner(), stepConfig.getP2Provisioner());
@@ -70,6 +73,9 @@ public class Eclipse implements FormatterStepFactory {
 		if (cacheDirectory != null) {
 			eclipseConfig.setCacheDirectory(cacheDirectory);
 		}
+		if (lockfile != null) {
+			eclipseConfig.setLockfile(stepConfig.getFileLocator().locateFile(lockfile));
+		}
 		if (sortMembersEnabled != null) {
 			eclipseConfig.sortMembersEnabled(sortMembersEnabled);
 		}
@@ -153,6 +153,85 @@ class GitRatchetMavenTest extends MavenIntegrationHarness {
 		mavenRunner().withArguments("spotless:check").runHasError();
 	}
 
+	@Test
+	void multiModuleReactor() throws Exception {
+		try (Git git = initRepo()) {
+			setFile("pom.xml").toLines(
+					"<project xmlns='http://maven.apache.org/POM/4.0.0' xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance' xsi:schemaLocation='http://maven.apache.org/POM/4.0.0 http://maven.apache.org/xsd/maven-4.0.0.xsd'>",
+					"  <modelVersion>4.0.0</modelVersion>",
+					"  <groupId>test</groupId>",
+					"  <artifactId>parent</artifactId>",
+					"  <version>1.0.0</version>",
+					"  <packaging>pom</packaging>",
+					"  <modules>",
+					"    <module>one</module>",
+					"    <module>two</module>",
+					"  </modules>",
+					"  <build>",
+					"    <plugins>",
+					"      <plugin>",
+					"        <groupId>com.diffplug.spotless</groupId>",
+					"        <artifactId>spotless-maven-plugin</artifactId>",
+					"        <version>" + System.getProperty("spotlessMavenPluginVersion") + "</version>",
+					"        <configuration>",
+					"          <formats>",
+					"            <format>",
+					"              <ratchetFrom>baseline</ratchetFrom>",
+					"              <includes>",
+					"                <include>src/markdown/*.md</include>",
+					"              </includes>",
+					"              <excludes>",
+					"                <exclude>src/markdown/excluded.md</exclude>",
+					"              </excludes>",
+					"              <replace>",
+					"                <name>Lowercase hello</name>",
+					"                <search>HELLO</search>",
+					"                <replacement>hello</replacement>",
+					"              </replace>",
+					"            </format>",
+					"          </formats>",
+					"        </configuration>",
+					"      </plugin>",
+					"    </plugins>",
+					"  </build>",
+					"</project>");
+			for (String module : new String[]{"one", "two"}) {
+				setFile(module + "/pom.xml").toLines(
+						"<project xmlns='http://maven.apache.org/POM/4.0.0' xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance' xsi:schemaLocation='http://maven.apache.org/POM/4.0.0 http://maven.apache.org/xsd/maven-4.0.0.xsd'>",
+						"  <modelVersion>4.0.0</modelVersion>",
+						"  <parent>",
+						"    <groupId>test</groupId>",
+						"    <artifactId>parent</artifactId>",
+						"    <version>1.0.0</version>",
+						"  </parent>",
+						"  <artifactId>" + module + "</artifactId>",
+						"  <packaging>pom</packaging>",
+						"</project>");
+				setFile(module + "/" + TEST_PATH).toContent("HELLO");
+			}
+			git.add().addFilepattern(".").call();
+			git.commit().setMessage("Initial state").call();
+			git.tag().setName("baseline").call();
+			assertClean();
+
+			// the dirty paths are computed once for the reactor, and each module formats only its own included ones
+			setFile("src/markdown/root.md").toContent("HELLO");
+			setFile("one/src/markdown/excluded.md").toContent("HELLO");
+			setFile("one/src/other/notIncluded.md").toContent("HELLO");
+			setFile("two/" + TEST_PATH).toContent("HELLO WORLD");
+			setFile("two/src/markdown/added.md").toContent("HELLO");
+			assertDirty();
+			mavenRunner().withArguments("spotless:apply").runNoError();
+			assertFile("src/markdown/root.md").hasContent("hello");
+			assertFile("one/" + TEST_PATH).hasContent("HELLO");
+			assertFile("one/src/markdown/excluded.md").hasContent("HELLO");
+			assertFile("one/src/other/notIncluded.md").hasContent("HELLO");
+			assertFile("two/" + TEST_PATH).hasContent("hello WORLD");
+			assertFile("two/src/markdown/added.md").hasContent("hello");
+			assertClean();
+		}
+	}
+
 	@Test
 	void worktreeSupport() throws Exception {
 		// Set up main repository with explicit 'main' branch
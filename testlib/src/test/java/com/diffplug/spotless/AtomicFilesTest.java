@@ -0,0 +1,60 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+class AtomicFilesTest extends ResourceHarness {
+	@Test
+	void writesAndReplaces() throws IOException {
+		Path file = newFile("sub/file.txt").toPath();
+		assertThat(AtomicFiles.write(file, true, temp -> Files.writeString(temp, "first", StandardCharsets.UTF_8))).isTrue();
+		assertThat(AtomicFiles.write(file, true, temp -> Files.writeString(temp, "second", StandardCharsets.UTF_8))).isTrue();
+		assertThat(file).hasContent("second");
+		assertThat(file.getParent().toFile().list()).containsExactly("file.txt");
+	}
+
+	@Test
+	void keepsExistingFileUnlessReplacing() throws IOException {
+		Path file = newFile("file.txt").toPath();
+		AtomicFiles.write(file, false, temp -> Files.writeString(temp, "first", StandardCharsets.UTF_8));
+		assertThat(AtomicFiles.write(file, false, temp -> Files.writeString(temp, "second", StandardCharsets.UTF_8))).isFalse();
+		assertThat(file).hasContent("first");
+	}
+
+	@Test
+	void failedWriteLeavesNoTempFile() throws IOException {
+		Path file = newFile("file.txt").toPath();
+		AtomicFiles.write(file, true, temp -> Files.writeString(temp, "first", StandardCharsets.UTF_8));
+		assertThatThrownBy(() -> AtomicFiles.write(file, true, temp -> {
+			Files.writeString(temp, "partial", StandardCharsets.UTF_8);
+			throw new IOException("disk full");
+		})).hasMessage("disk full");
+		assertThat(AtomicFiles.writeBestEffort(file, temp -> {
+			throw new IOException("disk full");
+		})).isFalse();
+		assertThat(file).hasContent("first");
+		assertThat(rootFolder().list()).containsExactly("file.txt");
+	}
+}
@@ -23,6 +23,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.Serial;
 import java.io.Serializable;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -108,4 +109,63 @@ class ConfigurationCacheHackListTest {
 		// toString after restore must still be side-effect free
 		assertThatCode(restored::toString).doesNotThrowAnyException();
 	}
+
+	@Test
+	void fingerprintsAreCachedAndSurviveRoundtrip() throws Exception {
+		AtomicInteger evals = new AtomicInteger();
+		ConfigurationCacheHackList original = ConfigurationCacheHackList.forEquality();
+		original.addAll(List.of(lazyStep("plain", evals, "eq-state")));
+
+		List<String> fingerprints = original.fingerprints();
+		assertThat(fingerprints).hasSize(1);
+		assertThat(original.fingerprints()).isSameAs(fingerprints);
+		assertThat(evals.get()).as("fingerprinting evaluates state once").isEqualTo(1);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(original);
+		}
+		ConfigurationCacheHackList restored;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			restored = (ConfigurationCacheHackList) in.readObject();
+		}
+		assertThat(restored.fingerprints()).isEqualTo(fingerprints);
+
+		ConfigurationCacheHackList other = ConfigurationCacheHackList.forEquality();
+		other.addAll(List.of(lazyStep("plain", evals, "other-state")));
+		assertThat(other.fingerprints()).isNotEqualTo(fingerprints);
+		other.clear();
+		other.addAll(List.of(lazyStep("plain", evals, "eq-state")));
+		assertThat(other.fingerprints()).isEqualTo(fingerprints);
+	}
+
+	@Test
+	void fingerprintsChangeWhenOnlyTheFunctionChanges() {
+		// like custom(name, FormatterFunc), whose state is the same for every function
+		ConfigurationCacheHackList first = ConfigurationCacheHackList.forEquality();
+		first.addAll(List.of(FormatterStep.createLazy("custom", () -> "globalState", SerializedFunction.alwaysReturns(new AppendFunc("a")))));
+		ConfigurationCacheHackList second = ConfigurationCacheHackList.forEquality();
+		second.addAll(List.of(FormatterStep.createLazy("custom", () -> "globalState", SerializedFunction.alwaysReturns(new AppendFunc("b")))));
+		ConfigurationCacheHackList same = ConfigurationCacheHackList.forEquality();
+		same.addAll(List.of(FormatterStep.createLazy("custom", () -> "globalState", SerializedFunction.alwaysReturns(new AppendFunc("a")))));
+
+		assertThat(second.fingerprints()).isNotEqualTo(first.fingerprints());
+		assertThat(same.fingerprints()).isEqualTo(first.fingerprints());
+	}
+
+	private static final class AppendFunc implements FormatterFunc, Serializable {
+		@Serial
+		private static final long serialVersionUID = 1L;
+
+		private final String suffix;
+
+		AppendFunc(String suffix) {
+			this.suffix = suffix;
+		}
+
+		@Override
+		public String apply(String input) {
+			return input + suffix;
+		}
+	}
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FeatureClassLoaderTest extends ResourceHarness {
+	@Test
+	void savesAndWarmsUpFromClassList() throws Exception {
+		URL[] urls = {Assertions.class.getProtectionDomain().getCodeSource().getLocation()};
+		Path classList = new File(rootFolder(), "warm-start/assertj.classlist").toPath();
+
+		try (FeatureClassLoader first = new FeatureClassLoader(urls, getClass().getClassLoader(), classList)) {
+			first.saveClassList();
+			assertThat(classList).doesNotExist();
+
+			Class<?> loaded = first.loadClass(Assertions.class.getName());
+			assertThat(loaded.getClassLoader()).isSameAs(first);
+			first.saveClassList();
+		}
+		assertThat(Files.readAllLines(classList, StandardCharsets.UTF_8)).contains(Assertions.class.getName());
+
+		try (FeatureClassLoader second = new FeatureClassLoader(urls, getClass().getClassLoader(), classList)) {
+			assertThat(second.loadClass(Assertions.class.getName()).getClassLoader()).isSameAs(second);
+		}
+	}
+
+	@Test
+	void ignoresUnknownClassesInClassList() throws IOException, ClassNotFoundException {
+		URL[] urls = {Assertions.class.getProtectionDomain().getCodeSource().getLocation()};
+		Path classList = setFile("stale.classlist").toContent("does.not.Exist\n" + Assertions.class.getName()).toPath();
+
+		try (FeatureClassLoader loader = new FeatureClassLoader(urls, getClass().getClassLoader(), classList)) {
+			assertThat(loader.loadClass(Assertions.class.getName()).getClassLoader()).isSameAs(loader);
+		}
+	}
+
+	@Test
+	void indexedLookupsMatchUrlClassLoader() throws Exception {
+		URL[] urls = {
+				Assertions.class.getProtectionDomain().getCodeSource().getLocation(),
+				Test.class.getProtectionDomain().getCodeSource().getLocation()};
+		assertThat(JarIndex.create(urls)).isNotNull();
+
+		try (FeatureClassLoader indexed = new FeatureClassLoader(urls, getClass().getClassLoader());
+				URLClassLoader plain = new URLClassLoader(urls, null)) {
+			Class<?> loaded = indexed.loadClass(Test.class.getName());
+			assertThat(loaded.getClassLoader()).isSameAs(indexed);
+			assertThat(loaded.getProtectionDomain().getCodeSource().getLocation()).isEqualTo(urls[1]);
+			assertThat(loaded.getPackage().getName()).isEqualTo(Test.class.getPackageName());
+
+			String resource = "META-INF/MANIFEST.MF";
+			assertThat(indexed.findResource(resource)).isEqualTo(plain.findResource(resource));
+			assertThat(Collections.list(indexed.findResources(resource)))
+					.containsExactlyElementsOf(Collections.list(plain.findResources(resource)));
+			assertThat(indexed.findResource("does/not/Exist.class")).isNull();
+		}
+	}
+
+	@Test
+	void indexOpensJarsOnlyWhenLookedUp() throws Exception {
+		URL[] urls = {
+				Assertions.class.getProtectionDomain().getCodeSource().getLocation(),
+				Test.class.getProtectionDomain().getCodeSource().getLocation()};
+
+		try (JarIndex index = JarIndex.create(urls)) {
+			assertThat(index).isNotNull();
+			assertThat(index.openedJars()).isZero();
+
+			assertThat(index.find(Test.class.getName().replace('.', '/') + ".class")).isNotNull();
+			assertThat(index.openedJars()).isEqualTo(1);
+		}
+	}
+}
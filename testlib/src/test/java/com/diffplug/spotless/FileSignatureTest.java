@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2025 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,10 +21,14 @@ import static org.junit.jupiter.api.condition.OS.WINDOWS;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -78,6 +82,35 @@ class FileSignatureTest extends ResourceHarness {
 		return result;
 	}
 
+	@Test
+	void testPersistentCache() throws IOException {
+		File file = setFile("jar").toContent("content");
+		Path cacheDir = newFolder("signatures").toPath();
+
+		FileSignature.Cache first = new FileSignature.Cache();
+		first.persistIn(cacheDir);
+		FileSignature.Sig computed = first.sign(file);
+		List<Path> entries;
+		try (Stream<Path> walk = Files.walk(cacheDir)) {
+			entries = walk.filter(Files::isRegularFile).toList();
+		}
+		assertThat(entries).hasSize(1);
+
+		// a fresh cache trusts the persisted digest as long as size and lastModified match
+		List<String> lines = Files.readAllLines(entries.get(0), StandardCharsets.UTF_8);
+		String fakeHash = "00".repeat(computed.hash.length);
+		Files.write(entries.get(0), List.of(lines.get(0), lines.get(1), lines.get(2), fakeHash), StandardCharsets.UTF_8);
+		FileSignature.Cache second = new FileSignature.Cache();
+		second.persistIn(cacheDir);
+		assertThat(second.sign(file).hash).isEqualTo(new byte[computed.hash.length]);
+
+		// and rehashes once the file changes
+		setFile("jar").toContent("different content");
+		assertThat(file.setLastModified(file.lastModified() + 2_000)).isTrue();
+		FileSignature.Sig rehashed = second.sign(file);
+		assertThat(rehashed.hash).isNotEqualTo(computed.hash).isNotEqualTo(new byte[computed.hash.length]);
+	}
+
 	@Test
 	void testSubpath() {
 		assertThat(FileSignature.subpath("root/", "root/child")).isEqualTo("child");
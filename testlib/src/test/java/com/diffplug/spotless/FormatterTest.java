@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2024 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,17 +15,30 @@
  */
 package com.diffplug.spotless;
 
+import java.io.File;
+import java.io.Serial;
+import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import com.diffplug.spotless.generic.EndWithNewlineStep;
 
 class FormatterTest {
+	@BeforeEach
+	void resetCounters() {
+		CountingState.created.set(0);
+		CountingState.closed.set(0);
+	}
+
 	@Test
 	void toUnix() {
 		Assertions.assertEquals("1\n2\n3", LineEnding.toUnix("1\n2\n3"));
@@ -33,6 +46,40 @@ class FormatterTest {
 		Assertions.assertEquals("1\n2\n3", LineEnding.toUnix("1\r\n2\r\n3"));
 	}
 
+	@Test
+	void equalsWithEnding() {
+		Assertions.assertTrue(LineEnding.equalsWithEnding("1\r\n2\r\n", "1\n2\n", "\r\n"));
+		Assertions.assertTrue(LineEnding.equalsWithEnding("1\r2", "1\n2", "\r"));
+		Assertions.assertTrue(LineEnding.equalsWithEnding("", "", "\r\n"));
+		Assertions.assertFalse(LineEnding.equalsWithEnding("1\n2", "1\n2", "\r\n"));
+		Assertions.assertFalse(LineEnding.equalsWithEnding("1\r\n2\r\n", "1\n2", "\r\n"));
+		Assertions.assertFalse(LineEnding.equalsWithEnding("1\r\n2", "1\n2\n", "\r\n"));
+		Assertions.assertFalse(LineEnding.equalsWithEnding("1\r\n3", "1\n2", "\r\n"));
+	}
+
+	@Test
+	void preserveUsesRawContent() {
+		// the file doesn't exist, so the policy must not read it
+		File file = new File("does-not-exist");
+		LineEnding.Policy preserve = LineEnding.PRESERVE.createPolicy();
+		Assertions.assertEquals("\n", preserve.getEndingFor(file, bytes("1\n2\r\n3")));
+		Assertions.assertEquals("\r\n", preserve.getEndingFor(file, bytes("1\r\n2\n3")));
+		Assertions.assertEquals("\r", preserve.getEndingFor(file, bytes("1\r2\n3")));
+		Assertions.assertEquals("\r", preserve.getEndingFor(file, bytes("1\r")));
+		Assertions.assertEquals("\n", preserve.getEndingFor(file, bytes("123")));
+		try (Formatter formatter = Formatter.builder()
+				.lineEndingsPolicy(preserve)
+				.encoding(StandardCharsets.UTF_8)
+				.steps(List.of())
+				.build()) {
+			Assertions.assertEquals("1\r\n2\r\n", formatter.computeLineEndings("1\n2\n", file, bytes("a\r\nb")));
+		}
+	}
+
+	private static byte[] bytes(String content) {
+		return content.getBytes(StandardCharsets.UTF_8);
+	}
+
 	// Formatter normally needs to be closed, but no resources will be leaked in this special case
 	@Test
 	void equality() {
@@ -65,4 +112,143 @@ class FormatterTest {
 			}
 		}.testEquals();
 	}
+
+	@Test
+	void slowToStartStepsStartInBackground() throws Exception {
+		FormatterStep step = FormatterStep.create("slow", new SlowState(), SlowState::toFormatter);
+		try (Formatter formatter = Formatter.builder()
+				.lineEndingsPolicy(LineEnding.UNIX.createPolicy())
+				.encoding(StandardCharsets.UTF_8)
+				.steps(List.of(step))
+				.build()) {
+			formatter.startStepsInBackground();
+			Assertions.assertEquals("formatted", formatter.compute("raw", new File("")));
+			Assertions.assertNotEquals(Thread.currentThread().getName(), SlowState.startedOn);
+		}
+	}
+
+	@Test
+	void closingAnUnusedStepDoesNotWaitForItsBackgroundStart() throws Exception {
+		GatedState.started = new CountDownLatch(1);
+		GatedState.release = new CountDownLatch(1);
+		GatedState.closed = new CountDownLatch(1);
+		FormatterStep step = FormatterStep.create("gated", new GatedState(), GatedState::toFormatter);
+		try (Formatter formatter = Formatter.builder()
+				.lineEndingsPolicy(LineEnding.UNIX.createPolicy())
+				.encoding(StandardCharsets.UTF_8)
+				.steps(List.of(step))
+				.build()) {
+			formatter.startStepsInBackground();
+			Assertions.assertTrue(GatedState.started.await(10, TimeUnit.SECONDS));
+		}
+		// closed while the start is still blocked, the function is closed once it has been created
+		Assertions.assertEquals(1, GatedState.closed.getCount());
+		GatedState.release.countDown();
+		Assertions.assertTrue(GatedState.closed.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void equalStepsShareFormatterFuncs() throws Exception {
+		try (FormatterFuncRegistry registry = new FormatterFuncRegistry()) {
+			for (int i = 0; i < 3; ++i) {
+				try (Formatter formatter = Formatter.builder()
+						.lineEndingsPolicy(LineEnding.UNIX.createPolicy())
+						.encoding(StandardCharsets.UTF_8)
+						.steps(List.of(FormatterStep.create("counting", new CountingState(), CountingState::toFormatter)))
+						.build()) {
+					formatter.shareFormatterFuncs(registry);
+					Assertions.assertEquals("formatted", formatter.compute("raw", new File("")));
+				}
+			}
+			Assertions.assertEquals(1, CountingState.created.get());
+			Assertions.assertEquals(0, CountingState.closed.get());
+
+			// same state, but a different step
+			try (Formatter formatter = Formatter.builder()
+					.lineEndingsPolicy(LineEnding.UNIX.createPolicy())
+					.encoding(StandardCharsets.UTF_8)
+					.steps(List.of(FormatterStep.create("other", new CountingState(), CountingState::toFormatter)))
+					.build()) {
+				formatter.shareFormatterFuncs(registry);
+				formatter.compute("raw", new File(""));
+			}
+			Assertions.assertEquals(2, CountingState.created.get());
+		}
+		Assertions.assertEquals(2, CountingState.closed.get());
+	}
+
+	@Test
+	void formatterFuncsWhichThrewAreNotShared() throws Exception {
+		try (FormatterFuncRegistry registry = new FormatterFuncRegistry()) {
+			try (Formatter formatter = Formatter.builder()
+					.lineEndingsPolicy(LineEnding.UNIX.createPolicy())
+					.encoding(StandardCharsets.UTF_8)
+					.steps(List.of(FormatterStep.create("counting", new CountingState(), CountingState::toFormatter)))
+					.build()) {
+				formatter.shareFormatterFuncs(registry);
+				Assertions.assertThrows(IllegalArgumentException.class, () -> formatter.compute("broken", new File("")));
+			}
+			Assertions.assertEquals(1, CountingState.closed.get());
+			Assertions.assertEquals(0, registry.releasedCount());
+
+			try (Formatter formatter = Formatter.builder()
+					.lineEndingsPolicy(LineEnding.UNIX.createPolicy())
+					.encoding(StandardCharsets.UTF_8)
+					.steps(List.of(FormatterStep.create("counting", new CountingState(), CountingState::toFormatter)))
+					.build()) {
+				formatter.shareFormatterFuncs(registry);
+				Assertions.assertEquals("formatted", formatter.compute("raw", new File("")));
+			}
+			Assertions.assertEquals(2, CountingState.created.get());
+			Assertions.assertEquals(1, registry.releasedCount());
+		}
+		Assertions.assertEquals(2, CountingState.closed.get());
+	}
+
+	private static class CountingState implements Serializable {
+		@Serial
+		private static final long serialVersionUID = 1L;
+
+		static final AtomicInteger created = new AtomicInteger();
+		static final AtomicInteger closed = new AtomicInteger();
+
+		FormatterFunc toFormatter() {
+			created.incrementAndGet();
+			AutoCloseable resource = closed::incrementAndGet;
+			return FormatterFunc.Closeable.of(resource, (unused, unix) -> {
+				if (unix.equals("broken")) {
+					throw new IllegalArgumentException("can't format " + unix);
+				}
+				return "formatted";
+			});
+		}
+	}
+
+	private static class GatedState implements Serializable, FormatterStep.SlowToStart {
+		@Serial
+		private static final long serialVersionUID = 1L;
+
+		static volatile CountDownLatch started;
+		static volatile CountDownLatch release;
+		static volatile CountDownLatch closed;
+
+		FormatterFunc toFormatter() throws InterruptedException {
+			started.countDown();
+			release.await();
+			AutoCloseable resource = closed::countDown;
+			return FormatterFunc.Closeable.of(resource, (unused, unix) -> "formatted");
+		}
+	}
+
+	private static class SlowState implements Serializable, FormatterStep.SlowToStart {
+		@Serial
+		private static final long serialVersionUID = 1L;
+
+		static volatile String startedOn;
+
+		FormatterFunc toFormatter() {
+			startedOn = Thread.currentThread().getName();
+			return unix -> "formatted";
+		}
+	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2021 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,11 @@
 package com.diffplug.spotless;
 
 import static com.diffplug.common.testing.SerializableTester.reserializeAndAssert;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 
 import org.junit.jupiter.api.Test;
 
@@ -59,4 +64,43 @@ class LazyForwardingEqualityTest {
 				.addEqualityGroup(o("world"), reserializeAndAssert(o("world")))
 				.testEquals();
 	}
+
+	@Test
+	void testStateIsSerializedOnlyOnce() {
+		CountingState.serializations = 0;
+		Counting counting = new Counting();
+		Counting other = new Counting();
+		for (int i = 0; i < 3; i++) {
+			assertThat(counting).isEqualTo(other).hasSameHashCodeAs(other);
+		}
+		assertThat(CountingState.serializations).isEqualTo(2);
+	}
+
+	@Test
+	void testDigestEquality() {
+		byte[] hello = LazyForwardingEquality.toBytes("hello");
+		byte[] world = LazyForwardingEquality.toBytes("world");
+		new EqualsTester()
+				.addEqualityGroup(LazyForwardingEquality.EqualityKey.of(hello, true), LazyForwardingEquality.EqualityKey.of(hello.clone(), true))
+				.addEqualityGroup(LazyForwardingEquality.EqualityKey.of(world, true), LazyForwardingEquality.EqualityKey.of(world.clone(), true))
+				.testEquals();
+		assertThat(LazyForwardingEquality.EqualityKey.of(hello, true).hashCode())
+				.isEqualTo(LazyForwardingEquality.EqualityKey.of(hello, false).hashCode());
+	}
+
+	static class Counting extends LazyForwardingEquality<CountingState> {
+		@Override
+		protected CountingState calculateState() {
+			return new CountingState();
+		}
+	}
+
+	static class CountingState implements Serializable {
+		static int serializations;
+
+		private void writeObject(ObjectOutputStream out) throws IOException {
+			serializations++;
+			out.defaultWriteObject();
+		}
+	}
 }
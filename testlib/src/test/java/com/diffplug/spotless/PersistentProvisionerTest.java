@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class PersistentProvisionerTest extends ResourceHarness {
+	@Test
+	void remembersResolvedFilesAcrossInstances() throws IOException {
+		File jar = setFile("repo/formatter-1.0.jar").toContent("jar");
+		File cacheDir = newFolder("cache");
+		AtomicInteger resolutions = new AtomicInteger();
+		Provisioner delegate = (withTransitives, coordinates) -> {
+			resolutions.incrementAndGet();
+			return Set.of(jar);
+		};
+
+		Provisioner first = PersistentProvisioner.wrap(delegate, cacheDir, () -> "mavenCentral");
+		assertThat(first.provisionWithTransitives(true, List.of("com.example:formatter:1.0"))).containsExactly(jar);
+		Provisioner second = PersistentProvisioner.wrap(delegate, cacheDir, () -> "mavenCentral");
+		assertThat(second.provisionWithTransitives(true, List.of("com.example:formatter:1.0"))).containsExactly(jar);
+		assertThat(resolutions).hasValue(1);
+
+		// anything in the key that differs is a miss
+		second.provisionWithTransitives(false, List.of("com.example:formatter:1.0"));
+		PersistentProvisioner.wrap(delegate, cacheDir, () -> "otherRepo").provisionWithTransitives(true, List.of("com.example:formatter:1.0"));
+		assertThat(resolutions).hasValue(3);
+
+		// a changed file invalidates the entry
+		setFile("repo/formatter-1.0.jar").toContent("changed jar");
+		second.provisionWithTransitives(true, List.of("com.example:formatter:1.0"));
+		assertThat(resolutions).hasValue(4);
+	}
+
+	@Test
+	void neverRemembersDynamicVersions() throws IOException {
+		File jar = setFile("repo/formatter-SNAPSHOT.jar").toContent("jar");
+		AtomicInteger resolutions = new AtomicInteger();
+		Provisioner provisioner = PersistentProvisioner.wrap((withTransitives, coordinates) -> {
+			resolutions.incrementAndGet();
+			return Set.of(jar);
+		}, newFolder("cache"), () -> "mavenCentral");
+
+		for (String coordinate : List.of("com.example:formatter:1.0-SNAPSHOT", "com.example:formatter:1.+", "com.example:formatter:[1.0,2.0)")) {
+			provisioner.provisionWithTransitives(true, List.of(coordinate));
+			provisioner.provisionWithTransitives(true, List.of(coordinate));
+		}
+		assertThat(resolutions).hasValue(6);
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class SpotlessCacheTest {
+	@Test
+	void evictsLeastRecentlyUsedBeyondMaxSize() {
+		SpotlessCache cache = new SpotlessCache();
+		long now = System.nanoTime();
+		for (int i = 0; i <= SpotlessCache.MAX_SIZE; i++) {
+			put(cache, "key" + i, now - SpotlessCache.MAX_SIZE + i);
+		}
+
+		cache.evict(now);
+
+		assertThat(cache.cache).hasSize(SpotlessCache.MAX_SIZE)
+				.doesNotContainKey(new SpotlessCache.SerializedKey("key0"))
+				.containsKey(new SpotlessCache.SerializedKey("key1"));
+	}
+
+	@Test
+	void evictsIdleClassLoaders() {
+		SpotlessCache cache = new SpotlessCache();
+		long now = System.nanoTime();
+		put(cache, "idle", now - SpotlessCache.MAX_IDLE_NANOS - 1);
+		put(cache, "recent", now);
+
+		cache.evict(now);
+
+		assertThat(cache.cache).containsOnlyKeys(new SpotlessCache.SerializedKey("recent"));
+	}
+
+	@Test
+	void releasingTheCacheDoesNotEvictRightAway() {
+		SpotlessCache cache = SpotlessCache.instance();
+		SpotlessCache.SerializedKey key = put(cache, "idle-at-release", System.nanoTime() - SpotlessCache.MAX_IDLE_NANOS - 1);
+		try {
+			SpotlessCache.markInUse().close();
+
+			assertThat(cache.cache).containsKey(key);
+		} finally {
+			cache.cache.remove(key);
+		}
+	}
+
+	@Test
+	void evictsNothingWhileInUse() {
+		SpotlessCache cache = SpotlessCache.instance();
+		SpotlessCache.SerializedKey key;
+		try (SpotlessCache.InUse inUse = SpotlessCache.markInUse()) {
+			key = put(cache, "idle-in-use", System.nanoTime() - SpotlessCache.MAX_IDLE_NANOS - 1);
+			SpotlessCache.evictUnused();
+
+			assertThat(cache.cache).containsKey(key);
+		}
+		SpotlessCache.evictUnused();
+
+		assertThat(cache.cache).doesNotContainKey(key);
+	}
+
+	@Test
+	void createsEachClassLoaderOnceAndNeverAfterEviction() {
+		AtomicInteger created = new AtomicInteger();
+		SpotlessCache.CachedClassLoader cached = new SpotlessCache.CachedClassLoader(() -> {
+			created.incrementAndGet();
+			return new URLClassLoader(new URL[0]);
+		});
+		assertThat(cached.created()).isNull();
+
+		URLClassLoader classLoader = cached.get();
+		assertThat(cached.get()).isSameAs(classLoader);
+		assertThat(cached.evict()).isSameAs(classLoader);
+		assertThat(cached.get()).isNull();
+		assertThat(created).hasValue(1);
+	}
+
+	private static SpotlessCache.SerializedKey put(SpotlessCache cache, String key, long lastAccessNanos) {
+		SpotlessCache.CachedClassLoader cached = new SpotlessCache.CachedClassLoader(new URLClassLoader(new URL[0]));
+		cached.lastAccessNanos = lastAccessNanos;
+		SpotlessCache.SerializedKey serializedKey = new SpotlessCache.SerializedKey(key);
+		cache.cache.put(serializedKey, cached);
+		return serializedKey;
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016-2025 DiffPlug
+ * Copyright 2016-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
 
 import org.junit.jupiter.api.Test;
 
@@ -71,4 +72,12 @@ class JsonWriterTest extends ResourceHarness {
 		jsonWriter.toJsonFile(file);
 		assertFile(file).hasContent("{\n    \"mystring\": \"stringvalue\"\n}");
 	}
+
+	@Test
+	void itStreamsEscapedJson() throws IOException {
+		jsonWriter.putAll(ImmutableMap.of("mystring", "line1\r\n\"quoted\"\t</script> C:\\dir \u00e9\u0001\u2028", "intvalue", 1));
+		StringWriter out = new StringWriter();
+		jsonWriter.writeTo(out);
+		assertThat(out.toString()).isEqualTo("{\n    \"mystring\": \"line1\\r\\n\\\"quoted\\\"\\t<\\/script> C:\\\\dir \u00e9\\u0001\\u2028\",\n    \"intvalue\": 1\n}");
+	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2023-2024 DiffPlug
+ * Copyright 2023-2026 DiffPlug
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -132,6 +132,37 @@ class ShadowCopyTest extends ResourceHarness {
 		Assertions.assertThat(shadowCopy.entryExists("someEntry", folderWithRandomFile.getName())).isFalse();
 	}
 
+	@Test
+	void identicalFilesOfDifferentEntriesAreStoredOnlyOnce() throws IOException {
+		File folderWithRandomFile = newFolderWithRandomFile();
+		File sameContentFolder = newFolder(randomStringOfLength(10));
+		File originalFile = folderWithRandomFile.listFiles()[0];
+		Files.copy(originalFile.toPath(), new File(sameContentFolder, originalFile.getName()).toPath());
+
+		shadowCopy.addEntry("someEntry", folderWithRandomFile);
+		shadowCopy.addEntry("someOtherEntry", sameContentFolder);
+
+		File entryFile = shadowCopy.getEntry("someEntry", folderWithRandomFile.getName()).listFiles()[0];
+		File otherEntryFile = shadowCopy.getEntry("someOtherEntry", sameContentFolder.getName()).listFiles()[0];
+		Assertions.assertThat(Files.isSameFile(entryFile.toPath(), otherEntryFile.toPath())).isTrue();
+	}
+
+	@Test
+	void garbageCollectionOnlyRemovesUnreferencedFiles() throws IOException {
+		File folderWithRandomFile = newFolderWithRandomFile();
+		File otherFolderWithRandomFile = newFolderWithRandomFile();
+		shadowCopy.addEntry("someEntry", folderWithRandomFile);
+		shadowCopy.addEntry("someOtherEntry", otherFolderWithRandomFile);
+
+		Assertions.assertThat(shadowCopy.collectGarbage()).isZero();
+
+		File otherEntryFile = shadowCopy.getEntry("someOtherEntry", otherFolderWithRandomFile.getName()).listFiles()[0];
+		Files.delete(otherEntryFile.toPath());
+
+		Assertions.assertThat(shadowCopy.collectGarbage()).isEqualTo(10);
+		assertAllFilesAreEqualButNotSameAbsolutePath(folderWithRandomFile, shadowCopy.getEntry("someEntry", folderWithRandomFile.getName()));
+	}
+
 	private void assertAllFilesAreEqualButNotSameAbsolutePath(File expected, File actual) {
 		if (expected.isFile()) {
 			assertFileIsEqualButNotSameAbsolutePath(expected, actual);
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.diffplug.spotless.npm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+class SimpleRestClientTest {
+
+	private final AtomicReference<String> transferEncoding = new AtomicReference<>();
+	private HttpServer server;
+
+	@BeforeEach
+	void startEchoServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/echo", exchange -> {
+			transferEncoding.set(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+			byte[] body;
+			try (InputStream in = exchange.getRequestBody()) {
+				body = in.readAllBytes();
+			}
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void stopEchoServer() {
+		server.stop(0);
+	}
+
+	@Test
+	void itStreamsEscapedJsonInChunks() {
+		Map<String, Object> params = new LinkedHashMap<>();
+		params.put("file_content", "\"é\"\n".repeat(50_000));
+		params.put("parser", "</script>");
+
+		String echoed = SimpleRestClient.forBaseUrl("http://" + server.getAddress().getAddress().getHostAddress() + ":" + server.getAddress().getPort()).postJson("/echo", params);
+
+		assertThat(transferEncoding.get()).isEqualTo("chunked");
+		assertThat(echoed).isEqualTo("{\n    \"file_content\": \"" + "\\\"é\\\"\\n".repeat(50_000) + "\",\n    \"parser\": \"<\\/script>\"\n}");
+	}
+}